@@ -0,0 +1,116 @@
+package utils;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сбор элементов и снятие отпечатка в браузере на синтетических страницах разного размера,
+ * для каждого движка сбора (см. ElementHarvester). ariaSnapshot - цена одного только снимка
+ * дерева доступности средствами Playwright, для сравнения с движком roles.
+ * Нужен установленный браузер Playwright (mvn exec:java -e -Dexec.mainClass=com.microsoft.playwright.CLI
+ * -Dexec.args="install chromium")
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HarvestBenchmark {
+
+    // Число интерактивных элементов на странице
+    @Param({"100", "1000", "10000"})
+    int elements;
+
+    @Param({"css", "roles"})
+    String engine;
+
+    ElementHarvester harvester;
+    Playwright playwright;
+    Browser browser;
+    Page page;
+    // Хеш структуры синтетической страницы, как будто ее инвентарь уже в кэше
+    List<String> knownHashes;
+
+    @Setup(Level.Trial)
+    public void launch() {
+        playwright = Playwright.create();
+        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+        page = browser.newPage();
+        page.setContent(SyntheticPage.html(elements));
+        harvester = ElementHarvester.named(engine);
+        Object answer = page.evaluate(harvester.cachedHarvestScript(), List.of());
+        knownHashes = List.of((String) ((List<?>) answer).get(0));
+        // Движки находят разное число элементов: секции с id для roles не интерактивны
+        System.out.println("📊 " + engine + ": " + ((List<?>) ((List<?>) answer).get(1)).size() + " elements of " + elements);
+    }
+
+    // Полный сбор за один evaluate, без регистрации в трекере
+    @Benchmark
+    public Object harvestScript() {
+        return page.evaluate(harvester.harvestScript());
+    }
+
+    // Сбор вместе с разбором записей на стороне Java
+    @Benchmark
+    public int harvestAndParse() {
+        Object result = page.evaluate(harvester.harvestScript());
+        int parsed = 0;
+        if (result instanceof List<?> records) {
+            for (Object record : records) {
+                if (HarvestedElement.fromPayload(record) != null) parsed++;
+            }
+        }
+        return parsed;
+    }
+
+    // Попадание в кэш инвентарей: браузер считает только хеш структуры.
+    // Должно быть заметно дешевле harvestScript, иначе кэш не окупается
+    @Benchmark
+    public Object cachedHarvestHit() {
+        return page.evaluate(harvester.cachedHarvestScript(), knownHashes);
+    }
+
+    // Худший случай для отпечатка: повторяющееся имя в конце страницы требует прохода по документу
+    @Benchmark
+    public Object fingerprintRepeatedName() {
+        return page.locator("button.repeated").last().evaluate(harvester.fingerprintScript());
+    }
+
+    // Элемент с id: отпечаток без обхода страницы
+    @Benchmark
+    public Object fingerprintById() {
+        return page.locator("#field-0").evaluate(harvester.fingerprintScript());
+    }
+
+    // Снимок дерева доступности Playwright: только YAML, без отпечатков для покрытия
+    @Benchmark
+    public String ariaSnapshot() {
+        return page.locator("body").ariaSnapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        if (playwright != null) {
+            playwright.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время генерации HTML отчета вместе с файлом данных на инвентарях разного размера
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ReportGeneratorBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int elements;
+
+    // Расширение отчета: .gz включает сжатие
+    @Param({"html", "html.gz"})
+    String extension;
+
+    Set<String> all;
+    Set<String> covered;
+    Map<String, UICoverageTracker.ElementInfo> info;
+    Map<String, long[]> hits;
+    Path directory;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        all = new HashSet<>();
+        covered = new HashSet<>();
+        info = new HashMap<>();
+        hits = new HashMap<>();
+        for (int i = 0; i < elements; i++) {
+            String id = i % 3 == 0 ? "id:field-" + i : "role:button:Synthetic <action> \"" + i + "\"";
+            all.add(id);
+            info.put(id, new UICoverageTracker.ElementInfo("Page " + (i % 50), i % 3 == 0 ? "input" : "button"));
+            // Покрыта примерно треть инвентаря
+            if (i % 3 == 1) {
+                covered.add(id);
+                hits.put(id, new long[]{i % 7, 0, 0, i % 2, 1});
+            }
+        }
+        directory = Files.createTempDirectory("report-bench");
+    }
+
+    @Benchmark
+    public Path generate() {
+        Path report = directory.resolve("report." + extension);
+        CoverageReportGenerator.generateHTMLReport(all, covered,
+                new CoverageReportGenerator.ReportOptions().elementInfo(info::get).hits(hits::get), report.toString());
+        return report;
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package utils;
+
+/**
+ * Генератор синтетических страниц для бенчмарков: смесь полей с id и подписями,
+ * кнопок с повторяющимися именами, ссылок и скрытых элементов во вложенных секциях.
+ * У секций, вложенных панелей и обертки приложения есть id: это разметка, которую сбор по CSS считает элементом,
+ * а сбор по ролям нет
+ */
+public final class SyntheticPage {
+
+    // Глубина вложенных панелей с id: так выглядит разметка реальных приложений
+    private static final int LAYOUT_DEPTH = 10;
+
+    private SyntheticPage() {}
+
+    public static String html(int elements) {
+        StringBuilder html = new StringBuilder(elements * 96);
+        html.append("<!DOCTYPE html><html><head><meta charset='utf-8'><title>Synthetic</title></head><body>")
+                .append("<div id='app'><main id='content'>");
+        for (int depth = 0; depth < LAYOUT_DEPTH; depth++) {
+            html.append("<div id='layout-").append(depth).append("'>");
+        }
+        for (int i = 0; i < elements; i++) {
+            if (i % 20 == 0) {
+                if (i > 0) html.append("</section>");
+                html.append("<section class='block' id='block-").append(i / 20).append("'><h2>Block ").append(i / 20).append("</h2>");
+            }
+            switch (i % 5) {
+                case 0 -> html.append("<label for='field-").append(i).append("'>Field ").append(i)
+                        .append("</label><input id='field-").append(i).append("' type='text'>");
+                case 1 -> html.append("<button class='repeated'>Delete</button>");
+                case 2 -> html.append("<button type='button'>Action ").append(i).append("</button>");
+                case 3 -> html.append("<a href='#item-").append(i).append("'>Item ").append(i).append("</a>");
+                default -> html.append("<div role='button' style='display:")
+                        .append(i % 10 == 4 ? "none" : "block").append("'>Toggle ").append(i).append("</div>");
+            }
+        }
+        if (elements > 0) html.append("</section>");
+        html.append("</div>".repeat(LAYOUT_DEPTH));
+        return html.append("</main></div></body></html>").toString();
+    }
+}
@@ -0,0 +1,89 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность трекера покрытия при параллельной записи из нескольких потоков
+ * (как при параллельных тестах JUnit) и стоимость подсчета покрытия во время записи
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackerBenchmark {
+
+    // Число разных элементов: от одной страницы до инвентаря краулера
+    @Param({"1000", "100000"})
+    int elements;
+
+    UICoverageTracker tracker;
+    String[] ids;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        tracker = new UICoverageTracker();
+        ids = new String[elements];
+        for (int i = 0; i < elements; i++) {
+            ids[i] = "role:button:Synthetic action number " + i;
+        }
+        // Половина инвентаря уже известна, как после сбора элементов на странице
+        for (int i = 0; i < elements; i += 2) {
+            tracker.addElement(ids[i], "Synthetic Page", "button");
+        }
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(elements)];
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void addElementContended() {
+        tracker.addElement(randomId(), "Synthetic Page", "button");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void markAsCoveredContended() {
+        tracker.markAsCovered(randomId(), ActionKind.CLICK);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void mixedWriter() {
+        tracker.markAsCovered(randomId(), ActionKind.FILL);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public double mixedCoverageQuery() {
+        return tracker.getCoveragePercentage();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean containsThroughView() {
+        return tracker.getCoveredElements().contains(randomId());
+    }
+}
@@ -0,0 +1,218 @@
+package base;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.options.Cookie;
+import utils.DOMElementExtractor;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Пул переиспользуемых BrowserContext с прогретой страницей.
+ * Контексты группируются по снимку storage state (логин, cookies), между тестами
+ * сбрасываются к этому снимку и выбрасываются после maxUses использований или падения теста
+ */
+public class BrowserContextPool {
+
+    private static final String NO_STATE = "";
+
+    // Очищаем хранилища текущего origin и возвращаем в localStorage значения из снимка
+    private static final String RESET_STORAGE_SCRIPT = """
+            (entries) => {
+              try {
+                localStorage.clear();
+                sessionStorage.clear();
+                for (const [name, value] of Object.entries(entries)) localStorage.setItem(name, value);
+              } catch (e) {
+                // about:blank и opaque origin не имеют хранилища
+              }
+            }
+            """;
+
+    /**
+     * Выданный тесту контекст со страницей
+     */
+    public static class Lease {
+        private final String key;
+        private final BrowserContext context;
+        private final Page page;
+        private final List<Cookie> snapshotCookies;
+        private final Map<String, Map<String, String>> snapshotStorage;
+        private DOMElementExtractor extractor;
+        private int uses;
+
+        private Lease(String key, BrowserContext context, Page page,
+                      List<Cookie> snapshotCookies, Map<String, Map<String, String>> snapshotStorage) {
+            this.key = key;
+            this.context = context;
+            this.page = page;
+            this.snapshotCookies = snapshotCookies;
+            this.snapshotStorage = snapshotStorage;
+        }
+
+        public BrowserContext context() {
+            return context;
+        }
+
+        public Page page() {
+            return page;
+        }
+
+        // Экстрактор живет столько же, сколько страница: binding и init script ставятся один раз
+        public DOMElementExtractor extractor() {
+            if (extractor == null) {
+                extractor = new DOMElementExtractor(page);
+            }
+            return extractor;
+        }
+
+        public int uses() {
+            return uses;
+        }
+    }
+
+    private final Browser browser;
+    private final int maxUses;
+    private final Consumer<BrowserContext> contextSetup;
+    private final Map<String, Deque<Lease>> idle = new HashMap<>();
+    private int created;
+    private int reused;
+
+    public BrowserContextPool(Browser browser, int maxUses, Consumer<BrowserContext> contextSetup) {
+        this.browser = browser;
+        this.maxUses = maxUses;
+        this.contextSetup = contextSetup;
+    }
+
+    /**
+     * Выдает свободный контекст для снимка storage state (null - чистый контекст)
+     */
+    public synchronized Lease acquire(Path storageState) {
+        String key = storageState == null ? NO_STATE : storageState.toAbsolutePath().toString();
+        Deque<Lease> free = idle.get(key);
+        Lease lease = free == null ? null : free.poll();
+        if (lease == null) {
+            lease = create(key, storageState);
+        } else {
+            reused++;
+        }
+        lease.uses++;
+        return lease;
+    }
+
+    /**
+     * Создает контексты заранее, чтобы первые тесты не платили за их создание
+     */
+    public synchronized void prewarm(Path storageState, int count) {
+        String key = storageState == null ? NO_STATE : storageState.toAbsolutePath().toString();
+        Deque<Lease> free = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+        while (free.size() < count) {
+            free.push(create(key, storageState));
+        }
+    }
+
+    /**
+     * Возвращает контекст в пул. После падения теста или исчерпания лимита контекст закрывается
+     */
+    public void release(Lease lease, boolean failed) {
+        if (failed || lease.uses >= maxUses || !reset(lease)) {
+            closeQuietly(lease);
+            return;
+        }
+        synchronized (this) {
+            idle.computeIfAbsent(lease.key, k -> new ArrayDeque<>()).push(lease);
+        }
+    }
+
+    public synchronized void close() {
+        for (Deque<Lease> leases : idle.values()) {
+            leases.forEach(BrowserContextPool::closeQuietly);
+        }
+        idle.clear();
+        if (created > 0) {
+            System.out.println("♻️ Context pool: created " + created + ", reused " + reused);
+        }
+    }
+
+    private Lease create(String key, Path storageState) {
+        Browser.NewContextOptions options = new Browser.NewContextOptions();
+        if (storageState != null) {
+            options.setStorageStatePath(storageState);
+        }
+        BrowserContext context = browser.newContext(options);
+        contextSetup.accept(context);
+
+        List<Cookie> cookies = storageState == null ? List.of() : context.cookies();
+        Map<String, Map<String, String>> storage = storageState == null ? Map.of() : parseLocalStorage(context.storageState());
+        created++;
+        return new Lease(key, context, context.newPage(), cookies, storage);
+    }
+
+    /**
+     * Дешевый сброс вместо нового контекста: закрываем лишние вкладки, возвращаем cookies
+     * и хранилище открытого origin к снимку, уходим на about:blank.
+     * Хранилища других origin, открытых тестом, остаются как есть
+     */
+    private boolean reset(Lease lease) {
+        try {
+            for (Page other : lease.context.pages()) {
+                if (other != lease.page) {
+                    other.close();
+                }
+            }
+            // Маршруты страницы (например, HAR-архив) ставятся заново в каждом тесте
+            lease.page.unrouteAll();
+            String origin = (String) lease.page.evaluate("() => location.origin");
+            lease.page.evaluate(RESET_STORAGE_SCRIPT, lease.snapshotStorage.getOrDefault(origin, Map.of()));
+
+            lease.context.clearCookies();
+            if (!lease.snapshotCookies.isEmpty()) {
+                lease.context.addCookies(lease.snapshotCookies);
+            }
+            lease.context.clearPermissions();
+            lease.page.navigate("about:blank");
+            return true;
+        } catch (PlaywrightException e) {
+            System.out.println("⚠️ Context reset failed, evicting: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Из storage state берем только localStorage по origin: cookies уже есть в context.cookies()
+    private static Map<String, Map<String, String>> parseLocalStorage(String storageStateJson) {
+        Map<String, Map<String, String>> result = new HashMap<>();
+        JsonObject state = JsonParser.parseString(storageStateJson).getAsJsonObject();
+        JsonArray origins = state.has("origins") ? state.getAsJsonArray("origins") : new JsonArray();
+        for (JsonElement originElement : origins) {
+            JsonObject origin = originElement.getAsJsonObject();
+            Map<String, String> entries = new LinkedHashMap<>();
+            for (JsonElement entry : origin.getAsJsonArray("localStorage")) {
+                JsonObject pair = entry.getAsJsonObject();
+                entries.put(pair.get("name").getAsString(), pair.get("value").getAsString());
+            }
+            result.put(origin.get("origin").getAsString(), entries);
+        }
+        return result;
+    }
+
+    private static void closeQuietly(Lease lease) {
+        try {
+            lease.context.close();
+        } catch (PlaywrightException ignored) {
+            // Браузер мог уже закрыться
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package base;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import utils.ResourceBlocker;
+
+import java.nio.file.Paths;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Браузеры по одному на рабочий поток. Java-клиент Playwright не потокобезопасен,
+ * поэтому каждый поток параллельного исполнителя JUnit получает свой Playwright, Browser
+ * и пул контекстов. Создаются лениво, закрываются один раз в конце прогона
+ */
+public final class BrowserWorkers {
+
+    /**
+     * Браузер и пул контекстов одного потока
+     */
+    public static final class Worker {
+        private final Playwright playwright;
+        private final Browser browser;
+        private final BrowserContextPool contextPool;
+        private final String threadName;
+
+        private Worker(Playwright playwright, Browser browser, BrowserContextPool contextPool) {
+            this.playwright = playwright;
+            this.browser = browser;
+            this.contextPool = contextPool;
+            this.threadName = Thread.currentThread().getName();
+        }
+
+        public Playwright playwright() {
+            return playwright;
+        }
+
+        public Browser browser() {
+            return browser;
+        }
+
+        // null, если пул выключен (-Dui.coverage.pool=false)
+        public BrowserContextPool contextPool() {
+            return contextPool;
+        }
+
+        private void close() {
+            try {
+                if (contextPool != null) {
+                    contextPool.close();
+                }
+                playwright.close();
+            } catch (PlaywrightException e) {
+                System.out.println("⚠️ Could not close browser of " + threadName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final RunProfile PROFILE = RunProfile.current();
+    private static final ThreadLocal<Worker> CURRENT = new ThreadLocal<>();
+    private static final Queue<Worker> ALL = new ConcurrentLinkedQueue<>();
+
+    static {
+        // Страховка для запусков вне JUnit (например, краулер из main)
+        Runtime.getRuntime().addShutdownHook(new Thread(BrowserWorkers::closeAll, "browser-workers-shutdown"));
+    }
+
+    private BrowserWorkers() {}
+
+    public static RunProfile profile() {
+        return PROFILE;
+    }
+
+    /**
+     * Браузер текущего потока, при первом обращении запускается
+     */
+    public static Worker current() {
+        Worker worker = CURRENT.get();
+        if (worker == null) {
+            Playwright playwright = Playwright.create();
+            Browser browser = PROFILE.browserType(playwright).launch(PROFILE.launchOptions());
+            BrowserContextPool pool = "false".equals(System.getProperty("ui.coverage.pool"))
+                    ? null
+                    : new BrowserContextPool(browser, Integer.getInteger("ui.coverage.pool.maxUses", 20),
+                    BrowserWorkers::configureContext);
+            worker = new Worker(playwright, browser, pool);
+            CURRENT.set(worker);
+            ALL.add(worker);
+            System.out.println("🚀 Launched " + PROFILE.browserName() + " (" + PROFILE + ") for " + worker.threadName);
+            prewarm(pool);
+        }
+        return worker;
+    }
+
+    // Контексты со снимком storage state по умолчанию создаются вместе с браузером (-Dui.coverage.pool.prewarm)
+    private static void prewarm(BrowserContextPool pool) {
+        int count = Integer.getInteger("ui.coverage.pool.prewarm", 0);
+        if (pool == null || count <= 0) {
+            return;
+        }
+        String state = System.getProperty("ui.coverage.storageState");
+        pool.prewarm(state == null || state.isBlank() ? null : Paths.get(state), count);
+    }
+
+    // Таймауты берем из профиля запуска, лишние ресурсы блокируем на уровне контекста
+    static void configureContext(BrowserContext context) {
+        context.setDefaultNavigationTimeout(PROFILE.navigationTimeoutMs());
+        context.setDefaultTimeout(PROFILE.defaultTimeoutMs());
+        ResourceBlocker.installIfEnabled(context);
+    }
+
+    public static int activeWorkers() {
+        return ALL.size();
+    }
+
+    /**
+     * Закрывает браузер текущего потока, если он был запущен. Для потоков, которые
+     * завершаются раньше конца прогона (например, потоки краулера)
+     */
+    public static void closeCurrent() {
+        Worker worker = CURRENT.get();
+        if (worker != null) {
+            CURRENT.remove();
+            // Если closeAll уже забрал браузер из очереди, он его и закрывает
+            if (ALL.remove(worker)) {
+                worker.close();
+            }
+        }
+    }
+
+    public static void closeAll() {
+        Worker worker;
+        while ((worker = ALL.poll()) != null) {
+            worker.close();
+        }
+    }
+
+    /**
+     * Регистрирует закрытие всех браузеров в корневом хранилище JUnit:
+     * оно срабатывает после завершения всех тестовых классов прогона
+     */
+    public static class Lifecycle implements BeforeAllCallback {
+        @Override
+        public void beforeAll(ExtensionContext context) {
+            context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                    .getOrComputeIfAbsent(BrowserWorkers.class, key -> (ExtensionContext.Store.CloseableResource) BrowserWorkers::closeAll);
+        }
+    }
+}
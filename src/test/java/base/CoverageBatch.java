@@ -0,0 +1,105 @@
+package base;
+
+import utils.ActionKind;
+import utils.ActionLatencyRecorder;
+import utils.ActionLatencyRecorder.Phase;
+import utils.HarvestedElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Цепочка шагов теста с покрытием, выполняемая с минимумом обращений к драйверу Playwright:
+ * coverage().fill(...).fill(...).click(...).run().
+ * Подряд идущие fill уходят в браузер одним скриптом вместе со снятием отпечатков
+ * и одним ожиданием успокоения страницы. Клики, ожидания и проверки остаются обычными
+ * шагами Playwright: им нужны настоящие события мыши и auto-wait.
+ * Покрытие и счетчики действий записываются для каждого элемента, как в *WithCoverage
+ */
+public class CoverageBatch {
+
+    private enum Kind { FILL, CLICK, WAIT, VISIBLE }
+
+    private record Step(Kind kind, String selector, String value, String description) {}
+
+    private final TestBase test;
+    private final List<Step> steps = new ArrayList<>();
+
+    CoverageBatch(TestBase test) {
+        this.test = test;
+    }
+
+    public CoverageBatch fill(String selector, String value, String fieldDescription) {
+        steps.add(new Step(Kind.FILL, selector, value, fieldDescription));
+        return this;
+    }
+
+    public CoverageBatch click(String selector, String elementDescription) {
+        steps.add(new Step(Kind.CLICK, selector, null, elementDescription));
+        return this;
+    }
+
+    public CoverageBatch waitFor(String selector, String elementDescription) {
+        steps.add(new Step(Kind.WAIT, selector, null, elementDescription));
+        return this;
+    }
+
+    public CoverageBatch checkVisible(String selector, String elementDescription) {
+        steps.add(new Step(Kind.VISIBLE, selector, null, elementDescription));
+        return this;
+    }
+
+    /**
+     * Выполняет шаги по порядку. Цепочку можно запускать повторно
+     */
+    public void run() {
+        int index = 0;
+        while (index < steps.size()) {
+            Step step = steps.get(index);
+            switch (step.kind()) {
+                case FILL -> {
+                    int end = index;
+                    while (end < steps.size() && steps.get(end).kind() == Kind.FILL) {
+                        end++;
+                    }
+                    runFills(steps.subList(index, end));
+                    index = end;
+                    continue;
+                }
+                case CLICK -> test.clickWithCoverage(step.selector(), step.description());
+                case WAIT -> test.waitForElement(step.selector(), step.description());
+                case VISIBLE -> test.checkVisibilityWithCoverage(step.selector(), step.description());
+            }
+            index++;
+        }
+    }
+
+    private void runFills(List<Step> fills) {
+        List<String> selectors = new ArrayList<>(fills.size());
+        List<String> values = new ArrayList<>(fills.size());
+        for (Step fill : fills) {
+            selectors.add(fill.selector());
+            values.add(fill.value());
+        }
+
+        ActionLatencyRecorder.Step timing = test.latency.step(test.currentPage, "fill-batch", String.join(", ", selectors));
+        long started = test.latency.start();
+        List<HarvestedElement> filled = test.domExtractor.fillInPage(selectors, values);
+        test.latency.stop(timing, Phase.ACTION, started);
+
+        for (int i = 0; i < filled.size(); i++) {
+            Step fill = fills.get(i);
+            test.domExtractor.markCovered(filled.get(i), ActionKind.FILL);
+            test.events.log("✅ Filled: %s with: '%s'", fill.description(), fill.value());
+        }
+        if (!filled.isEmpty()) {
+            // Одно ожидание реакции страницы на всю пачку вместо паузы после каждого поля
+            test.settleAfter(timing, 500);
+        }
+
+        // Поле, которое нельзя было заполнить скриптом, и все после него - обычным fill с auto-wait
+        for (Step fill : fills.subList(filled.size(), fills.size())) {
+            test.fillWithCoverage(fill.selector(), fill.value(), fill.description());
+        }
+    }
+}
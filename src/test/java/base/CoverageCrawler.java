@@ -0,0 +1,255 @@
+package base;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.WaitUntilState;
+import utils.CoverageEventBus;
+import utils.CoverageReportGenerator;
+import utils.DOMElementExtractor;
+import utils.PageSettler;
+import utils.UICoverageTracker;
+import utils.UrlNormalizer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Краулер для полного инвентаря приложения: обход в ширину по ссылкам и маршрутам
+ * в пределах одного origin с ограничением глубины и числа страниц. Каждая страница
+ * проходит тот же сбор элементов, что и в тестах, поэтому знаменатель покрытия
+ * отражает все приложение, а не только страницы, которые открывают тесты.
+ * Страницы одного уровня обходятся параллельно: у каждого потока свой браузер (см. BrowserWorkers)
+ */
+public class CoverageCrawler {
+
+    // Ссылки и маршруты SPA, для которых нет href (routerLink Angular, data-href и т.п.)
+    static final String LINKS_SCRIPT = """
+            () => {
+              const urls = new Set();
+              for (const el of document.querySelectorAll('a[href], area[href]')) {
+                if (!el.hasAttribute('download')) urls.add(el.href);
+              }
+              for (const el of document.querySelectorAll('[routerlink], [data-href], [data-route]')) {
+                const route = el.getAttribute('routerlink') || el.getAttribute('data-href') || el.getAttribute('data-route');
+                try { urls.add(new URL(route, document.baseURI).href); } catch (e) {}
+              }
+              return Array.from(urls);
+            }
+            """;
+
+    // Не страницы: файлы, которые браузер скачает или покажет без DOM приложения
+    private static final Pattern NOT_A_PAGE = Pattern.compile(
+            "(?i).*\\.(pdf|zip|gz|tar|rar|7z|exe|dmg|msi|png|jpe?g|gif|svg|webp|ico|mp[34]|avi|mov|csv|xlsx?|docx?)$");
+
+    private final int maxDepth;
+    private final int maxPages;
+    private final int concurrency;
+    private final Pattern exclude;
+
+    /**
+     * Итог обхода
+     *
+     * @param pages    посещенные страницы в порядке обхода
+     * @param failures страницы, которые не удалось открыть, с причиной
+     * @param elements сколько элементов добавилось в инвентарь трекера
+     */
+    public record Result(List<String> pages, List<String> failures, int elements) {}
+
+    /**
+     * @param maxDepth    глубина обхода от стартовой страницы (0 - только она)
+     * @param maxPages    верхняя граница числа посещенных страниц
+     * @param concurrency сколько страниц открывается одновременно
+     * @param exclude     URL, совпадающие с шаблоном, не посещаются (например, выход из аккаунта)
+     */
+    public CoverageCrawler(int maxDepth, int maxPages, int concurrency, Pattern exclude) {
+        this.maxDepth = maxDepth;
+        this.maxPages = maxPages;
+        this.concurrency = Math.max(1, concurrency);
+        this.exclude = exclude;
+    }
+
+    public static CoverageCrawler fromSystemProperties() {
+        return new CoverageCrawler(
+                Integer.getInteger("ui.coverage.crawl.depth", 2),
+                Integer.getInteger("ui.coverage.crawl.maxPages", 200),
+                Integer.getInteger("ui.coverage.crawl.concurrency", 4),
+                Pattern.compile(System.getProperty("ui.coverage.crawl.exclude", "(?i).*(logout|log-out|signout|sign-out).*")));
+    }
+
+    /**
+     * Обходит приложение от стартовой страницы, элементы каждой страницы попадают в общий трекер
+     */
+    public Result crawl(String startUrl) {
+        String start = UrlNormalizer.normalize(startUrl);
+        if (start == null) {
+            throw new IllegalArgumentException("Not an http(s) URL: " + startUrl);
+        }
+        UICoverageTracker tracker = UICoverageTracker.getInstance();
+        CoverageEventBus events = CoverageEventBus.getInstance();
+        events.flush();
+        int elementsBefore = tracker.getTotalCount();
+
+        // Адрес попадает в visited при постановке в очередь, поэтому каждая страница открывается один раз
+        Set<String> visited = ConcurrentHashMap.newKeySet();
+        visited.add(start);
+        List<String> pages = Collections.synchronizedList(new ArrayList<>());
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger threads = new AtomicInteger();
+        // Браузер потока краулера закрывается, когда поток завершается после остановки пула
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    BrowserWorkers.closeCurrent();
+                }
+            }, "coverage-crawler-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        events.log("🕷️ Crawling %s (depth %s)", start, String.valueOf(maxDepth));
+        try {
+            List<String> level = List.of(start);
+            for (int depth = 0; depth <= maxDepth && !level.isEmpty(); depth++) {
+                List<Future<List<String>>> visits = new ArrayList<>();
+                for (String url : level) {
+                    visits.add(pool.submit(() -> visit(url, start, pages, failures)));
+                }
+                List<String> next = new ArrayList<>();
+                for (Future<List<String>> visit : visits) {
+                    for (String link : visit.get()) {
+                        if (depth < maxDepth && visited.size() < maxPages && visited.add(link)) {
+                            next.add(link);
+                        }
+                    }
+                }
+                level = next;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Crawler failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            awaitTermination(pool);
+        }
+
+        events.flush();
+        Result result = new Result(List.copyOf(pages), List.copyOf(failures), tracker.getTotalCount() - elementsBefore);
+        events.log("🕷️ Crawled %s page(s), found %s new element(s)",
+                String.valueOf(result.pages().size()), String.valueOf(result.elements()));
+        return result;
+    }
+
+    // Открывает страницу в браузере текущего потока, собирает элементы и возвращает ссылки на тот же origin
+    private List<String> visit(String url, String start, List<String> pages, List<String> failures) {
+        BrowserContextPool.Lease lease = null;
+        BrowserContext context = null;
+        BrowserWorkers.Worker worker = null;
+        boolean failed = false;
+        try {
+            worker = BrowserWorkers.current();
+            Page page;
+            DOMElementExtractor extractor;
+            if (worker.contextPool() != null) {
+                lease = worker.contextPool().acquire(null);
+                page = lease.page();
+                extractor = lease.extractor();
+            } else {
+                context = worker.browser().newContext();
+                BrowserWorkers.configureContext(context);
+                page = context.newPage();
+                extractor = new DOMElementExtractor(page);
+            }
+
+            page.navigate(url, new Page.NavigateOptions().setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+            PageSettler.fromSystemProperties(page).settle(1000);
+
+            // После редиректа страница могла уйти на другой origin: ее элементы не наши
+            String landed = UrlNormalizer.normalize(page.url());
+            if (landed == null || !UrlNormalizer.sameOrigin(landed, start)) {
+                failures.add(url + " - redirected to " + page.url());
+                return List.of();
+            }
+            pages.add(landed);
+            extractor.setPageName(pageName(landed));
+            extractor.collectAllInteractiveElements();
+
+            List<String> links = new ArrayList<>();
+            if (page.evaluate(LINKS_SCRIPT) instanceof List<?> hrefs) {
+                for (Object href : hrefs) {
+                    String link = href == null ? null : UrlNormalizer.resolve(landed, href.toString());
+                    if (link != null && UrlNormalizer.sameOrigin(link, start) && isCrawlable(link)) {
+                        links.add(link);
+                    }
+                }
+            }
+            return links;
+        } catch (RuntimeException e) {
+            // Ошибка одной страницы (в том числе запуска браузера) не прерывает обход
+            failed = true;
+            String message = e.getMessage() == null ? e.toString() : e.getMessage();
+            failures.add(url + " - " + message.lines().findFirst().orElse(""));
+            return List.of();
+        } finally {
+            if (lease != null) {
+                worker.contextPool().release(lease, failed);
+            } else if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Ждем, пока потоки пула закроют свои браузеры: иначе они переживут обход
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.out.println("⚠️ Crawler threads did not stop in 30s, their browsers close at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isCrawlable(String url) {
+        return !NOT_A_PAGE.matcher(URI.create(url).getRawPath()).matches() && !exclude.matcher(url).matches();
+    }
+
+    // Имя страницы в отчете: путь и маршрут SPA без хоста
+    static String pageName(String url) {
+        String origin = UrlNormalizer.origin(url);
+        return origin == null ? url : url.substring(origin.length());
+    }
+
+    /**
+     * Запуск без тестов: краулер обходит приложение и пишет отчет с полным инвентарем
+     * mvn -q exec:java -Dexec.mainClass=base.CoverageCrawler -Dexec.classpathScope=test -Dexec.args="https://demoqa.com/"
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: CoverageCrawler <start url>");
+            System.exit(2);
+        }
+        Result result = fromSystemProperties().crawl(args[0]);
+        result.failures().forEach(failure -> System.out.println("⚠️ Not crawled: " + failure));
+
+        UICoverageTracker tracker = UICoverageTracker.getInstance();
+        CoverageReportGenerator.generateHTMLReport(tracker.getAllElements(), tracker.getCoveredElements(),
+                new CoverageReportGenerator.ReportOptions().elementInfo(tracker::getElementInfo).hits(tracker::getHits),
+                System.getProperty("ui.coverage.report", "target/ui-coverage-report.html"));
+        tracker.printCoverageReport();
+        BrowserWorkers.closeAll();
+    }
+}
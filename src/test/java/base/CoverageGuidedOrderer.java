@@ -0,0 +1,48 @@
+package base;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import utils.TestSelection;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+
+/**
+ * Порядок тестов для быстрой обратной связи: первыми идут тесты и классы, которые покрывают
+ * больше всего элементов, изменившихся с прошлой сборки. Без истории порядок не меняется
+ * (сортировка устойчивая). Классы упорядочиваются через junit-platform.properties,
+ * методы - через @TestMethodOrder на TestBase
+ */
+public class CoverageGuidedOrderer implements MethodOrderer, ClassOrderer {
+
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        TestSelection plan = CoverageGuidedSelection.plan();
+        Class<?> testClass = context.getTestClass();
+        context.getMethodDescriptors().sort(Comparator.comparingInt(
+                (MethodDescriptor method) -> plan.priority(CoverageGuidedSelection.testId(testClass, method.getMethod())))
+                .reversed());
+    }
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        TestSelection plan = CoverageGuidedSelection.plan();
+        context.getClassDescriptors().sort(Comparator.comparingInt(
+                (ClassDescriptor descriptor) -> classPriority(plan, descriptor.getTestClass())).reversed());
+    }
+
+    private static int classPriority(TestSelection plan, Class<?> testClass) {
+        int priority = 0;
+        for (Method method : testClass.getMethods()) {
+            priority = Math.max(priority, plan.priority(CoverageGuidedSelection.testId(testClass, method)));
+        }
+        for (Method method : testClass.getDeclaredMethods()) {
+            priority = Math.max(priority, plan.priority(CoverageGuidedSelection.testId(testClass, method)));
+        }
+        return priority;
+    }
+}
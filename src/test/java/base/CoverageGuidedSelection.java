@@ -0,0 +1,90 @@
+package base;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import utils.CoverageHistory;
+import utils.CoverageShardStore;
+import utils.TestImpactMap;
+import utils.TestSelection;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Пропуск избыточных тестов по карте покрытия (-Dui.coverage.select=true): запускаются тесты
+ * минимального набора, покрывающего все известные элементы, плюс новые тесты.
+ * План строится один раз на форк из .ui-coverage: карта тест -> элементы и дельта
+ * двух последних прогонов (добавленные, удаленные и переставшие покрываться элементы)
+ */
+public class CoverageGuidedSelection implements ExecutionCondition {
+
+    // Ленивая и безопасная публикация плана через holder-класс
+    private static final class Holder {
+        private static final TestSelection PLAN = loadPlan();
+    }
+
+    static TestSelection plan() {
+        return Holder.PLAN;
+    }
+
+    static String testId(Class<?> testClass, Method method) {
+        return testClass.getName() + "#" + method.getName();
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("ui.coverage.select");
+    }
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        if (!isEnabled() || context.getTestMethod().isEmpty() || context.getTestClass().isEmpty()) {
+            return ConditionEvaluationResult.enabled("Coverage-guided selection is off");
+        }
+        String id = testId(context.getTestClass().get(), context.getTestMethod().get());
+        return plan().shouldRun(id)
+                ? ConditionEvaluationResult.enabled("Needed for coverage")
+                : ConditionEvaluationResult.disabled("Covered elements are unchanged and already covered by selected tests");
+    }
+
+    private static TestSelection loadPlan() {
+        if (!CoverageHistory.isEnabled()) {
+            return new TestSelection(Map.of(), Set.of());
+        }
+        CoverageHistory history = CoverageHistory.fromSystemProperties();
+        try {
+            Map<String, Set<String>> coverage = TestImpactMap.load(history.getDirectory());
+            Set<String> changed = changedElements(history);
+            TestSelection plan = new TestSelection(coverage, changed);
+            if (!coverage.isEmpty()) {
+                System.out.println("🎯 Test map: " + plan.getKnownTests() + " known test(s), "
+                        + plan.getSelected().size() + " cover all elements, "
+                        + plan.getChangedCount() + " changed element(s)"
+                        + (isEnabled() ? "" : " (selection off, ordering only)"));
+            }
+            return plan;
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not load test map: " + e.getMessage());
+            return new TestSelection(Map.of(), Set.of());
+        }
+    }
+
+    // Дельта двух последних прогонов без текущего: его запись может быть уже начата другим форком
+    private static Set<String> changedElements(CoverageHistory history) throws IOException {
+        List<CoverageHistory.RunEntry> runs = history.runs().stream()
+                .filter(run -> !run.runId().equals(CoverageShardStore.currentRunId()))
+                .toList();
+        if (runs.size() < 2) {
+            return Set.of();
+        }
+        CoverageHistory.Delta delta = history.delta(runs.get(runs.size() - 2), runs.get(runs.size() - 1));
+        Set<String> changed = new HashSet<>(delta.getAdded());
+        changed.addAll(delta.getRemoved());
+        changed.addAll(delta.getNewlyUncovered());
+        return changed;
+    }
+}
@@ -0,0 +1,90 @@
+package base;
+
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Playwright;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Профиль запуска браузера: режим headless, slowMo, таймауты, аргументы Chromium и движок.
+ * Выбирается через -Dui.coverage.profile или переменную окружения UI_COVERAGE_PROFILE.
+ * Без явного выбора интерактивный запуск из консоли получает demo, все остальные - fast
+ */
+public enum RunProfile {
+    // Наглядный прогон: видимый браузер и замедление действий
+    DEMO(false, 1000, 30000, 60000, List.of()),
+
+    // CI-агенты: без окна и замедления, но с запасом по таймаутам на медленном окружении
+    CI(true, 0, 30000, 60000, List.of(
+            "--disable-gpu",
+            "--disable-extensions",
+            "--disable-dev-shm-usage",
+            "--disable-background-timer-throttling",
+            "--disable-backgrounding-occluded-windows",
+            "--disable-renderer-backgrounding")),
+
+    // Максимальная скорость для локальных и неинтерактивных прогонов
+    FAST(true, 0, 15000, 30000, List.of(
+            "--disable-gpu",
+            "--disable-extensions",
+            "--disable-background-timer-throttling",
+            "--disable-backgrounding-occluded-windows",
+            "--disable-renderer-backgrounding",
+            "--mute-audio",
+            "--no-first-run"));
+
+    private final boolean headless;
+    private final int slowMoMs;
+    private final int defaultTimeoutMs;
+    private final int navigationTimeoutMs;
+    private final List<String> chromiumArgs;
+
+    RunProfile(boolean headless, int slowMoMs, int defaultTimeoutMs, int navigationTimeoutMs, List<String> chromiumArgs) {
+        this.headless = headless;
+        this.slowMoMs = slowMoMs;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.navigationTimeoutMs = navigationTimeoutMs;
+        this.chromiumArgs = chromiumArgs;
+    }
+
+    public static RunProfile current() {
+        String name = System.getProperty("ui.coverage.profile", System.getenv("UI_COVERAGE_PROFILE"));
+        if (name != null && !name.isBlank()) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+        return System.console() != null ? DEMO : FAST;
+    }
+
+    // Движок можно переопределить отдельно от профиля: -Dui.coverage.browser=firefox
+    public String browserName() {
+        return System.getProperty("ui.coverage.browser", "chromium").trim().toLowerCase(Locale.ROOT);
+    }
+
+    public BrowserType browserType(Playwright playwright) {
+        switch (browserName()) {
+            case "chromium": return playwright.chromium();
+            case "firefox": return playwright.firefox();
+            case "webkit": return playwright.webkit();
+            default: throw new IllegalArgumentException("Unknown browser: " + browserName());
+        }
+    }
+
+    public BrowserType.LaunchOptions launchOptions() {
+        BrowserType.LaunchOptions options = new BrowserType.LaunchOptions()
+                .setHeadless(Boolean.parseBoolean(System.getProperty("ui.coverage.headless", String.valueOf(headless))))
+                .setSlowMo(slowMoMs);
+        if ("chromium".equals(browserName()) && !chromiumArgs.isEmpty()) {
+            options.setArgs(chromiumArgs);
+        }
+        return options;
+    }
+
+    public int defaultTimeoutMs() {
+        return defaultTimeoutMs;
+    }
+
+    public int navigationTimeoutMs() {
+        return navigationTimeoutMs;
+    }
+}
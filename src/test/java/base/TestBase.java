@@ -1,95 +1,320 @@
 package base;
 
 import com.microsoft.playwright.*;
-import com.microsoft.playwright.options.LoadState;
 import com.microsoft.playwright.options.MouseButton;
 import com.microsoft.playwright.options.WaitForSelectorState;
 import com.microsoft.playwright.options.WaitUntilState;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import utils.ActionKind;
+import utils.ActionLatencyRecorder;
+import utils.ActionLatencyRecorder.Phase;
+import utils.CoverageEventBus;
+import utils.CoverageHistory;
+import utils.CoverageReportGenerator.ReportOptions;
+import utils.CoverageShardStore;
 import utils.DOMElementExtractor;
+import utils.HarvestedElement;
+import utils.HarArchive;
+import utils.InventoryCache;
+import utils.PageSettler;
+import utils.ResourceBlocker;
+import utils.TestImpactMap;
 import utils.UICoverageTracker;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+
 /**
  * Базовый класс для всех тестов с поддержкой отслеживания покрытия
  */
+@ExtendWith({BrowserWorkers.Lifecycle.class, TestBase.HistoryLifecycle.class, TestBase.FailureListener.class, CoverageGuidedSelection.class})
+@TestMethodOrder(CoverageGuidedOrderer.class)
 public class TestBase {
-    protected static Playwright playwright;
-    protected static Browser browser;
+    // Браузер свой у каждого рабочего потока JUnit (см. BrowserWorkers)
+    protected static final RunProfile profile = BrowserWorkers.profile();
+    // Запись/воспроизведение сетевого трафика (-Dui.coverage.har=record|replay)
+    protected static final HarArchive harArchive = HarArchive.fromSystemProperties();
+    protected Playwright playwright;
+    protected Browser browser;
     protected BrowserContext context;
     protected Page page;
+    private BrowserContextPool.Lease lease;
+    private boolean testFailed;
 
     // Тут наши утилиты для покрытия
     protected DOMElementExtractor domExtractor;
     protected UICoverageTracker coverageTracker;
+    protected PageSettler settler;
+    protected final ActionLatencyRecorder latency = ActionLatencyRecorder.getInstance();
+    // Покрытие и логи шагов публикуются в очередь, в трекер и консоль их переносит фоновый поток
+    protected final CoverageEventBus events = CoverageEventBus.getInstance();
+    // Страница последнего navigateWithCoverage: для профиля задержек по страницам
+    String currentPage;
+    // Шард форка записан хотя бы одним классом: только тогда в конце прогона пишется история
+    private static volatile boolean shardWritten;
 
     @BeforeAll
     public static void launchBrowser() {
-        playwright = Playwright.create();
-        browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
-                .setHeadless(false) // Браузер для наглядности
-                .setSlowMo(1000)); // Замедляем выполнение для демонстрации
+        // Браузеры запускаются лениво в потоках, где выполняются тесты, а закрываются в конце прогона.
+        // Профиль задает headless, slowMo, таймауты и движок (-Dui.coverage.profile=demo|ci|fast)
+        System.out.println("🚀 Browser profile: " + profile + " (" + profile.browserName() + ")");
     }
 
+    /**
+     * Итоги класса: события покрытия, отчет, кэш и карта тестов. Браузеры закрывает
+     * BrowserWorkers в конце всего прогона
+     */
     @AfterAll
-    public static void closeBrowser() {
-        // Генерируем HTML отчет
+    public static void flushAndReportCoverage() {
+        // Дожидаемся, пока фоновый поток перенесет в трекер все события покрытия
+        CoverageEventBus.getInstance().flush();
+
+        // Сохраняем шард своего форка и генерируем HTML отчет по всем форкам запуска
         UICoverageTracker tracker = UICoverageTracker.getInstance();
-        utils.CoverageReportGenerator.generateHTMLReport(
-                tracker.getAllElements(),
-                tracker.getCoveredElements(),
-                "target/ui-coverage-report.html"
-        );
+        writeMergedReport(tracker);
+
+        saveInventoryCache();
+        saveTestImpactMap();
 
         // Печатаем консольный отчет
         tracker.printCoverageReport();
+        ActionLatencyRecorder.getInstance().printSummary();
+    }
 
-        // Закрываем браузер
-        if (playwright != null) {
-            playwright.close();
+    /**
+     * Каждый форк Surefire пишет свой шард, после чего отчет собирается из всех
+     * шардов текущего запуска. Форки делают это по очереди под файловой блокировкой,
+     * поэтому последний завершившийся форк оставляет полный отчет
+     */
+    private static synchronized void writeMergedReport(UICoverageTracker tracker) {
+        // Путь с расширением .gz включает сжатие отчета
+        String reportPath = System.getProperty("ui.coverage.report", "target/ui-coverage-report.html");
+        CoverageShardStore store = CoverageShardStore.defaultStore();
+        try (FileChannel reportLock = store.openReportLock()) {
+            // synchronized разводит потоки одного форка, файловая блокировка - разные форки
+            reportLock.lock();
+            store.writeShard(CoverageShardStore.currentForkId(), CoverageShardStore.currentRunId(),
+                    tracker.getAllElements(), tracker.getCoveredElements(), tracker::getElementInfo, tracker::getHits);
+            shardWritten = true;
+
+            // Профиль задержек форка лежит рядом с шардом и складывается так же
+            ActionLatencyRecorder.getInstance().writeJson(
+                    store.getDirectory().resolve("latency-fork-" + CoverageShardStore.currentForkId() + ".json"),
+                    CoverageShardStore.currentRunId());
+
+            CoverageShardStore.MergedCoverage merged = store.merge(CoverageShardStore.currentRunId());
+            ActionLatencyRecorder mergedLatency =
+                    ActionLatencyRecorder.mergeJson(store.getDirectory(), CoverageShardStore.currentRunId());
+            System.out.println("🔗 Merged coverage from " + merged.getShardCount() + " fork(s)");
+            utils.CoverageReportGenerator.generateHTMLReport(merged.getAllElements(), merged.getCoveredElements(),
+                    new ReportOptions().elementInfo(merged::getElementInfo).hits(merged::getHits)
+                            .sections(List.of(mergedLatency.slowestStepsSection(20))), reportPath);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not merge coverage shards, writing fork-local report: " + e.getMessage());
+            // Отчет читает множества в несколько проходов, поэтому фиксируем снимок живых представлений
+            utils.CoverageReportGenerator.generateHTMLReport(new HashSet<>(tracker.getAllElements()),
+                    new HashSet<>(tracker.getCoveredElements()),
+                    new ReportOptions().elementInfo(tracker::getElementInfo).hits(tracker::getHits)
+                            .sections(List.of(ActionLatencyRecorder.getInstance().slowestStepsSection(20))), reportPath);
         }
     }
 
-    @BeforeEach
-    public void createContextAndPage() {
-        context = browser.newContext();
+    // Кэш инвентарей страниц переживает запуск, если задан -Dui.coverage.cache.file
+    private static void saveInventoryCache() {
+        if (!InventoryCache.isEnabled()) {
+            return;
+        }
+        InventoryCache cache = InventoryCache.getInstance();
+        if (cache.getHits() > 0) {
+            System.out.println("🗃️ Inventory cache: " + cache.getHits() + " hit(s), " + cache.getMisses() + " miss(es)");
+        }
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not save inventory cache: " + e.getMessage());
+        }
+    }
+
+    // Карта тест -> элементы для выбора и порядка тестов (см. CoverageGuidedSelection)
+    private static void saveTestImpactMap() {
+        if (!CoverageHistory.isEnabled()) {
+            return;
+        }
+        try {
+            TestImpactMap.getInstance().save(CoverageHistory.fromSystemProperties().getDirectory());
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not save test map: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Сохраняет прогон в историю (.ui-coverage) и печатает, что перестало покрываться.
+     * Вызывается один раз на форк в конце прогона; форки одного прогона перезаписывают
+     * его запись, поэтому в истории остается полный итог
+     */
+    private static void recordHistory() {
+        if (!CoverageHistory.isEnabled() || !shardWritten) {
+            return;
+        }
+        try {
+            CoverageShardStore.MergedCoverage merged =
+                    CoverageShardStore.defaultStore().merge(CoverageShardStore.currentRunId());
+            CoverageHistory history = CoverageHistory.fromSystemProperties();
+            history.record(CoverageShardStore.currentRunId(), CoverageHistory.currentCommit(),
+                    merged.getAllElements(), merged.getCoveredElements(), merged::getElementInfo);
+            history.printSummary(5);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not update coverage history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Регистрирует запись истории в корневом хранилище JUnit: она срабатывает один раз
+     * после завершения всех тестовых классов форка, а не в @AfterAll каждого класса
+     */
+    public static class HistoryLifecycle implements BeforeAllCallback {
+        @Override
+        public void beforeAll(ExtensionContext context) {
+            context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                    .getOrComputeIfAbsent(HistoryLifecycle.class, key -> (ExtensionContext.Store.CloseableResource) TestBase::recordHistory);
+        }
+    }
 
-        // Устанавливаем таймаут навигации побольше
-        context.setDefaultNavigationTimeout(60000);
-        context.setDefaultTimeout(30000);
+    @BeforeEach
+    public void createContextAndPage(TestInfo testInfo) {
+        testFailed = false;
+        String testId = CoverageGuidedSelection.testId(testInfo.getTestClass().orElse(getClass()),
+                testInfo.getTestMethod().orElseThrow());
+        TestImpactMap.getInstance().started(testId);
+        BrowserWorkers.Worker worker = BrowserWorkers.current();
+        playwright = worker.playwright();
+        browser = worker.browser();
+
+        if (worker.contextPool() != null) {
+            // Берем прогретый контекст из пула, сброшенный к снимку storage state
+            lease = worker.contextPool().acquire(storageState());
+            context = lease.context();
+            page = lease.page();
+            domExtractor = lease.extractor();
+        } else {
+            Browser.NewContextOptions options = new Browser.NewContextOptions();
+            if (storageState() != null) {
+                options.setStorageStatePath(storageState());
+            }
+            context = browser.newContext(options);
+            BrowserWorkers.configureContext(context);
+            page = context.newPage();
+            domExtractor = new DOMElementExtractor(page);
+        }
 
-        page = context.newPage();
+        // Покрытые элементы запоминаются за этим тестом
+        domExtractor.setTestId(testId);
 
         // Инициализируем наши утилиты
         coverageTracker = UICoverageTracker.getInstance();
-        domExtractor = new DOMElementExtractor(page);
+        settler = PageSettler.fromSystemProperties(page);
+
+        // Опционально: инкрементальный сбор через MutationObserver (-Dui.coverage.incremental=true)
+        if (Boolean.getBoolean("ui.coverage.incremental")) {
+            domExtractor.enableIncrementalHarvesting();
+        }
     }
 
     @AfterEach
     public void closeContext() {
-        if (context != null) {
+        // Сколько запросов не загрузили благодаря блокировке ресурсов
+        ResourceBlocker blocker = context == null ? null : ResourceBlocker.of(context);
+        if (blocker != null) {
+            ResourceBlocker.Savings savings = blocker.drainSavings();
+            if (savings.getRequests() > 0) {
+                events.log("🚫 Blocked %s", savings.toString());
+            }
+        }
+
+        if (lease != null) {
+            // Контекст после упавшего теста не переиспользуем. При записи HAR контекст закрываем,
+            // потому что архив сохраняется на диск только при закрытии
+            BrowserWorkers.current().contextPool().release(lease, testFailed || harArchive.isRecording());
+            lease = null;
+        } else if (context != null) {
             context.close();
         }
     }
 
+    /**
+     * Снимок storage state (cookies, localStorage), с которым стартует тест.
+     * Наследники могут переопределить, например, чтобы начинать с залогиненной сессии
+     */
+    protected Path storageState() {
+        String path = System.getProperty("ui.coverage.storageState");
+        return path == null || path.isBlank() ? null : Paths.get(path);
+    }
+
+    /**
+     * Отмечает упавший тест до @AfterEach, чтобы пул выбросил его контекст
+     */
+    static class FailureListener implements AfterTestExecutionCallback {
+        @Override
+        public void afterTestExecution(ExtensionContext extensionContext) {
+            if (extensionContext.getExecutionException().isPresent()
+                    && extensionContext.getTestInstance().orElse(null) instanceof TestBase test) {
+                test.testFailed = true;
+            }
+        }
+    }
+
     /**
      * Переход на страницу с сбором элементов с ожиданием DOMCONTENTLOADED
      */
     protected void navigateWithCoverage(String url, String pageName) {
-        System.out.println("\n🌐 Navigating to: " + url);
-
-        // Используем DOMCONTENTLOADED для надежной загрузки
+        events.log("%n🌐 Navigating to: %s", url);
+
+        // Используем DOMCONTENTLOADED для надежной загрузки: navigate сам дожидается этого состояния
+        domExtractor.setPageName(pageName);
+        harArchive.attach(page, pageName, url);
+        currentPage = pageName;
+        ActionLatencyRecorder.Step step = latency.step(pageName, "navigate", url);
+        long started = latency.start();
         page.navigate(url, new Page.NavigateOptions().setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+        latency.stop(step, Phase.ACTION, started);
+
+        // Ждем, пока страница успокоится (стратегия -Dui.coverage.settle, 2000 мс только в режиме sleep)
+        settleAfter(step, 2000);
+
+        // Собираем все элементы на странице. В инкрементальном режиме их уже прислал MutationObserver
+        if (domExtractor.isIncremental()) {
+            events.log("✓ Live inventory: %s interactive elements", String.valueOf(domExtractor.getLiveInventory().size()));
+        } else {
+            long harvestStarted = latency.start();
+            domExtractor.collectAllInteractiveElements();
+            latency.stop(step, Phase.HARVEST, harvestStarted);
+        }
 
-        // Дополнительно ждем полной загрузки
-        page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-
-        // Даем дополнительное время для полной инициализации страницы
-        page.waitForTimeout(2000);
+        events.log("📊 Analyzing page: %s", pageName);
+    }
 
-        // Собираем все элементы на странице
-        domExtractor.collectAllInteractiveElements();
+    /**
+     * Цепочка шагов с покрытием за меньшее число обращений к драйверу:
+     * coverage().fill(...).fill(...).click(...).run()
+     */
+    protected CoverageBatch coverage() {
+        return new CoverageBatch(this);
+    }
 
-        System.out.println("📊 Analyzing page: " + pageName);
+    /**
+     * Локатор первого совпадения: как и page.click(selector), не падает в strict mode,
+     * если селектор находит несколько элементов
+     */
+    protected Locator locate(String selector) {
+        return page.locator(selector).first();
     }
 
     /**
@@ -97,28 +322,28 @@ public class TestBase {
      */
     protected void clickWithCoverage(String selector, String elementDescription) {
         try {
-            // Ждем пока элемент станет доступным с увеличенным таймаутом
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions().setTimeout(30000));
-
-            // Проверяем что элемент видимый и кликабельный
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions()
-                    .setState(WaitForSelectorState.VISIBLE)
-                    .setTimeout(30000));
+            // Отпечаток снимаем до действия: после него элемент может исчезнуть
+            ActionLatencyRecorder.Step step = latency.step(currentPage, "click", selector);
+            Locator target = locate(selector);
+            long fingerprintStarted = latency.start();
+            HarvestedElement element = domExtractor.describe(target, selector);
+            latency.stop(step, Phase.FINGERPRINT, fingerprintStarted);
 
-            // Кликаем по элементу
-            page.click(selector);
+            // Один auto-wait Playwright: элемент прикреплен, видим, стабилен и доступен
+            long started = latency.start();
+            target.click();
+            latency.stop(step, Phase.ACTION, started);
 
-            // Генерируем ID и отмечаем как покрытый
-            String elementId = domExtractor.generateElementIdentifier(selector, elementDescription);
-            coverageTracker.markAsCovered(elementId);
+            // Отмечаем как покрытый тем же отпечатком, что и при сборе элементов
+            domExtractor.markCovered(element, ActionKind.CLICK);
 
-            System.out.println("✅ Clicked: " + elementDescription);
+            events.log("✅ Clicked: %s", elementDescription);
 
-            // Небольшая пауза после клика
-            page.waitForTimeout(1000);
+            // Ждем реакцию страницы на клик
+            settleAfter(step, 1000);
 
         } catch (Exception e) {
-            System.out.println("❌ Failed to click: " + elementDescription + " - " + e.getMessage());
+            events.log("❌ Failed to click: %s - %s", elementDescription, e.getMessage());
             throw new RuntimeException("Element not clickable: " + selector, e);
         }
     }
@@ -128,54 +353,47 @@ public class TestBase {
      */
     protected void fillWithCoverage(String selector, String value, String fieldDescription) {
         try {
-            // Ждем пока элемент станет доступным с увеличенным таймаутом
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions().setTimeout(30000));
+            // Отпечаток снимаем до действия: после него элемент может исчезнуть
+            ActionLatencyRecorder.Step step = latency.step(currentPage, "fill", selector);
+            Locator target = locate(selector);
+            long fingerprintStarted = latency.start();
+            HarvestedElement element = domExtractor.describe(target, selector);
+            latency.stop(step, Phase.FINGERPRINT, fingerprintStarted);
 
-            // Проверяем что элемент видимый
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions()
-                    .setState(WaitForSelectorState.VISIBLE)
-                    .setTimeout(30000));
+            // fill сам дожидается готовности поля и заменяет его содержимое, отдельная очистка не нужна
+            long started = latency.start();
+            target.fill(value);
+            latency.stop(step, Phase.ACTION, started);
 
-            // Очищаем поле перед заполнением
-            page.fill(selector, "");
+            // Отмечаем как покрытый тем же отпечатком, что и при сборе элементов
+            domExtractor.markCovered(element, ActionKind.FILL);
 
-            // Заполняем поле
-            page.fill(selector, value);
+            events.log("✅ Filled: %s with: '%s'", fieldDescription, value);
 
-            // Генерируем ID и отмечаем как покрытый
-            String elementId = domExtractor.generateElementIdentifier(selector, fieldDescription);
-            coverageTracker.markAsCovered(elementId);
-
-            System.out.println("✅ Filled: " + fieldDescription + " with: '" + value + "'");
-
-            // Небольшая пауза после заполнения
-            page.waitForTimeout(500);
+            // Ждем реакцию страницы на ввод
+            settleAfter(step, 500);
 
         } catch (Exception e) {
-            System.out.println("❌ Failed to fill: " + fieldDescription + " - " + e.getMessage());
+            events.log("❌ Failed to fill: %s - %s", fieldDescription, e.getMessage());
             throw new RuntimeException("Element not fillable: " + selector, e);
         }
     }
 
     /**
-     * Ожидание появления элемента с дополнительными проверками
+     * Ожидание появления элемента: состояние VISIBLE уже включает ATTACHED
      */
     protected void waitForElement(String selector, String elementDescription) {
         try {
-            System.out.println("⏳ Waiting for: " + elementDescription);
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions()
-                    .setState(WaitForSelectorState.ATTACHED)
-                    .setTimeout(30000));
+            events.log("⏳ Waiting for: %s", elementDescription);
+            ActionLatencyRecorder.Step step = latency.step(currentPage, "wait", selector);
+            long started = latency.start();
+            locate(selector).waitFor(new Locator.WaitForOptions().setState(WaitForSelectorState.VISIBLE));
+            latency.stop(step, Phase.WAIT, started);
 
-            // Дополнительная проверка что элемент видимый
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions()
-                    .setState(WaitForSelectorState.VISIBLE)
-                    .setTimeout(30000));
-
-            System.out.println("✅ Element ready: " + elementDescription);
+            events.log("✅ Element ready: %s", elementDescription);
 
         } catch (Exception e) {
-            System.out.println("❌ Element not found: " + elementDescription + " - " + e.getMessage());
+            events.log("❌ Element not found: %s - %s", elementDescription, e.getMessage());
             throw new RuntimeException("Element not found: " + selector, e);
         }
     }
@@ -184,25 +402,28 @@ public class TestBase {
      */
     protected void doubleClickWithCoverage(String selector, String elementDescription) {
         try {
-            // Ждем пока элемент станет доступным
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions()
-                    .setState(WaitForSelectorState.VISIBLE)
-                    .setTimeout(30000));
+            // Отпечаток снимаем до действия: после него элемент может исчезнуть
+            ActionLatencyRecorder.Step step = latency.step(currentPage, "dblclick", selector);
+            Locator target = locate(selector);
+            long fingerprintStarted = latency.start();
+            HarvestedElement element = domExtractor.describe(target, selector);
+            latency.stop(step, Phase.FINGERPRINT, fingerprintStarted);
 
-            // Выполняем двойной клик
-            page.dblclick(selector);
+            // Выполняем двойной клик (ожидание готовности встроено в локатор)
+            long started = latency.start();
+            target.dblclick();
+            latency.stop(step, Phase.ACTION, started);
 
-            // Генерируем ID и отмечаем как покрытый
-            String elementId = domExtractor.generateElementIdentifier(selector, elementDescription);
-            coverageTracker.markAsCovered(elementId);
+            // Отмечаем как покрытый тем же отпечатком, что и при сборе элементов
+            domExtractor.markCovered(element, ActionKind.DBLCLICK);
 
-            System.out.println("✅ Double clicked: " + elementDescription);
+            events.log("✅ Double clicked: %s", elementDescription);
 
-            // Небольшая пауза после действия
-            page.waitForTimeout(1000);
+            // Ждем реакцию страницы на действие
+            settleAfter(step, 1000);
 
         } catch (Exception e) {
-            System.out.println("❌ Failed to double click: " + elementDescription + " - " + e.getMessage());
+            events.log("❌ Failed to double click: %s - %s", elementDescription, e.getMessage());
         }
     }
 
@@ -211,25 +432,28 @@ public class TestBase {
      */
     protected void rightClickWithCoverage(String selector, String elementDescription) {
         try {
-            // Ждем пока элемент станет доступным
-            page.waitForSelector(selector, new Page.WaitForSelectorOptions()
-                    .setState(WaitForSelectorState.VISIBLE)
-                    .setTimeout(30000));
+            // Отпечаток снимаем до действия: после него элемент может исчезнуть
+            ActionLatencyRecorder.Step step = latency.step(currentPage, "rightclick", selector);
+            Locator target = locate(selector);
+            long fingerprintStarted = latency.start();
+            HarvestedElement element = domExtractor.describe(target, selector);
+            latency.stop(step, Phase.FINGERPRINT, fingerprintStarted);
 
-            // Выполняем правый клик
-            page.click(selector, new Page.ClickOptions().setButton(MouseButton.RIGHT));
+            // Выполняем правый клик (ожидание готовности встроено в локатор)
+            long started = latency.start();
+            target.click(new Locator.ClickOptions().setButton(MouseButton.RIGHT));
+            latency.stop(step, Phase.ACTION, started);
 
-            // Генерируем ID и отмечаем как покрытый
-            String elementId = domExtractor.generateElementIdentifier(selector, elementDescription);
-            coverageTracker.markAsCovered(elementId);
+            // Отмечаем как покрытый тем же отпечатком, что и при сборе элементов
+            domExtractor.markCovered(element, ActionKind.RIGHT_CLICK);
 
-            System.out.println("✅ Right clicked: " + elementDescription);
+            events.log("✅ Right clicked: %s", elementDescription);
 
-            // Небольшая пауза после действия
-            page.waitForTimeout(1000);
+            // Ждем реакцию страницы на действие
+            settleAfter(step, 1000);
 
         } catch (Exception e) {
-            System.out.println("❌ Failed to right click: " + elementDescription + " - " + e.getMessage());
+            events.log("❌ Failed to right click: %s - %s", elementDescription, e.getMessage());
         }
     }
 
@@ -238,20 +462,44 @@ public class TestBase {
      */
     protected void checkVisibilityWithCoverage(String selector, String elementDescription) {
         try {
-            // Пробуем разные стратегии ожидания
-            boolean isVisible = page.isVisible(selector, new Page.IsVisibleOptions().setTimeout(10000));
+            // Проверка без ожидания: isVisible возвращает текущее состояние элемента
+            ActionLatencyRecorder.Step step = latency.step(currentPage, "visible", selector);
+            Locator target = locate(selector);
+            long started = latency.start();
+            boolean isVisible = target.isVisible();
+            latency.stop(step, Phase.ACTION, started);
 
             if (isVisible) {
-                String elementId = domExtractor.generateElementIdentifier(selector, elementDescription);
-                coverageTracker.markAsCovered(elementId);
-                System.out.println("✅ Visible: " + elementDescription);
+                domExtractor.markCovered(domExtractor.describe(target, selector), ActionKind.VISIBLE);
+                events.log("✅ Visible: %s", elementDescription);
             } else {
-                System.out.println("⚠️ Element not visible (but no error): " + elementDescription);
+                events.log("⚠️ Element not visible (but no error): %s", elementDescription);
             }
 
         } catch (Exception e) {
-            System.out.println("⚠️ Element check skipped: " + elementDescription + " - " + e.getMessage());
+            events.log("⚠️ Element check skipped: %s - %s", elementDescription, e.getMessage());
             // Не бросаем исключение, просто логируем
         }
     }
-}
\ No newline at end of file
+
+    // Ожидание реакции страницы после шага с замером фазы settle
+    void settleAfter(ActionLatencyRecorder.Step step, int fallbackSleepMs) {
+        long started = latency.start();
+        settler.settle(fallbackSleepMs);
+        latency.stop(step, Phase.SETTLE, started);
+    }
+
+    /**
+     * Ожидание, пока страница успокоится после действия, выполненного напрямую через page
+     */
+    protected void settle() {
+        settler.settle(1000);
+    }
+
+    /**
+     * Ожидание пользовательского условия в браузере с верхней границей по времени
+     */
+    protected boolean settleUntil(String predicate) {
+        return settler.settleUntil(predicate);
+    }
+}
@@ -0,0 +1,26 @@
+package tests;
+
+import base.CoverageCrawler;
+import base.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Полный инвентарь приложения перед отчетом: краулер обходит все страницы с тем же origin.
+ * Запускается только с адресом стартовой страницы:
+ * mvn test -Dui.coverage.crawl=https://demoqa.com/ -Dui.coverage.crawl.depth=2
+ */
+@EnabledIfSystemProperty(named = "ui.coverage.crawl", matches = "https?://.+")
+public class CrawlerCoverageTest extends TestBase {
+
+    @Test
+    void testCrawlApplicationInventory() {
+        CoverageCrawler.Result result = CoverageCrawler.fromSystemProperties().crawl(System.getProperty("ui.coverage.crawl"));
+
+        result.failures().forEach(failure -> System.out.println("⚠️ Not crawled: " + failure));
+        assertFalse(result.pages().isEmpty(), "Start page should be crawled");
+        System.out.println("🎉 Краулер завершен: " + result.pages().size() + " страниц");
+    }
+}
@@ -0,0 +1,52 @@
+package tests;
+
+import base.TestBase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import utils.FixtureServer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тот же сценарий, что и в WorkingTextBoxTest, но на локальной странице из fixtures:
+ * работает без сети и не зависит от задержек demoqa.com
+ */
+public class LocalFixtureTextBoxTest extends TestBase {
+
+    private static FixtureServer fixtureServer;
+
+    @BeforeAll
+    static void startFixtureServer() throws Exception {
+        fixtureServer = new FixtureServer().start();
+    }
+
+    @AfterAll
+    static void stopFixtureServer() {
+        if (fixtureServer != null) {
+            fixtureServer.close();
+        }
+    }
+
+    @Test
+    void testLocalTextBoxFormWithCoverage() {
+        navigateWithCoverage(fixtureServer.url("text-box.html"), "Local Text Box Page");
+
+        fillWithCoverage("#userName", "John Doe", "Full Name field");
+        fillWithCoverage("#userEmail", "john.doe@example.com", "Email field");
+        fillWithCoverage("#currentAddress", "123 Main Street, City, Country", "Current Address field");
+        fillWithCoverage("#permanentAddress", "456 Second Street, Another City", "Permanent Address field");
+
+        clickWithCoverage("#submit", "Submit button");
+
+        waitForElement("#output", "Results output section");
+        checkVisibilityWithCoverage("#output", "Results output section");
+
+        String nameText = page.textContent("#name");
+        String emailText = page.textContent("#email");
+
+        assertNotNull(nameText, "Name result should not be null");
+        assertTrue(nameText.contains("John Doe"), "Name should contain 'John Doe'");
+        assertTrue(emailText.contains("john.doe@example.com"), "Email should contain 'john.doe@example.com'");
+    }
+}
@@ -22,23 +22,14 @@ public class WorkingTextBoxTest extends TestBase {
         waitForElement("#userEmail", "Email input field");
         waitForElement("#submit", "Submit button");
 
-        // Шаг 2: Заполняем поле Full Name
-        fillWithCoverage("#userName", "John Doe", "Full Name field");
-
-        // Шаг 3: Заполняем поле Email
-        fillWithCoverage("#userEmail", "john.doe@example.com", "Email field");
-
-        // Шаг 4: Заполняем поле Current Address
-        fillWithCoverage("#currentAddress", "123 Main Street, City, Country", "Current Address field");
-
-        // Шаг 5: Заполняем поле Permanent Address
-        fillWithCoverage("#permanentAddress", "456 Second Street, Another City", "Permanent Address field");
-
-        // Шаг 6: Прокручиваем к кнопке Submit для уверенности
-        page.evaluate("document.getElementById('submit').scrollIntoView()");
-
-        // Шаг 7: Кликаем по кнопке Submit
-        clickWithCoverage("#submit", "Submit button");
+        // Шаги 2-7: Заполняем все поля формы одним обращением к браузеру и кликаем Submit
+        coverage()
+                .fill("#userName", "John Doe", "Full Name field")
+                .fill("#userEmail", "john.doe@example.com", "Email field")
+                .fill("#currentAddress", "123 Main Street, City, Country", "Current Address field")
+                .fill("#permanentAddress", "456 Second Street, Another City", "Permanent Address field")
+                .click("#submit", "Submit button")
+                .run();
 
         // Шаг 8: Ждем появления результатов
         waitForElement("#output", "Results output section");
@@ -121,7 +112,7 @@ public class WorkingTextBoxTest extends TestBase {
         clickWithCoverage(".rct-collapse-btn", "Expand tree button");
 
         // Ждем появления дочерних элементов
-        page.waitForTimeout(1000);
+        settle();
 
         // Кликаем по чекбоксу Desktop
         clickWithCoverage("label[for='tree-node-desktop']", "Desktop checkbox");
@@ -144,10 +135,10 @@ public class WorkingTextBoxTest extends TestBase {
 
         // Кликаем по нескольким ссылкам в левой панели
         clickWithCoverage("li:has-text('Text Box')", "Text Box menu item");
-        page.waitForTimeout(1000);
+        settle();
 
         clickWithCoverage("li:has-text('Check Box')", "Check Box menu item");
-        page.waitForTimeout(1000);
+        settle();
 
         clickWithCoverage("li:has-text('Radio Button')", "Radio Button menu item");
 
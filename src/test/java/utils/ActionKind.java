@@ -0,0 +1,22 @@
+package utils;
+
+/**
+ * Вид действия теста над элементом: для счетчиков обращений и тепловой карты отчета
+ */
+public enum ActionKind {
+    CLICK("click"),
+    DBLCLICK("dblclick"),
+    RIGHT_CLICK("rightclick"),
+    FILL("fill"),
+    VISIBLE("visible");
+
+    private final String label;
+
+    ActionKind(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
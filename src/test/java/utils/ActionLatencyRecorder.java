@@ -0,0 +1,329 @@
+package utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Профиль задержек шагов в обертках TestBase. Шаг - это пара страница + действие + селектор,
+ * для каждого шага отдельно копятся фазы: ожидание элемента, само действие, ожидание
+ * успокоения страницы и сбор элементов. Время пишется в лог-линейные гистограммы
+ * (LatencyHistogram), поэтому доступны перцентили, а не только среднее.
+ *
+ * Каждый форк выгружает профиль в JSON (target/ui-coverage/latency-fork-N.json),
+ * из этих файлов собирается раздел отчета с самыми медленными шагами
+ */
+public class ActionLatencyRecorder {
+
+    /**
+     * Фаза шага. Ожидание actionability внутри click/fill Playwright не отделяет от действия,
+     * поэтому WAIT - это явные ожидания waitForElement. FINGERPRINT - снятие отпечатка
+     * элемента перед действием (скрипт в браузере и ожидание элемента в DOM)
+     */
+    public enum Phase {
+        WAIT, FINGERPRINT, ACTION, SETTLE, HARVEST;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Шаг теста: страница, действие (click, fill, navigate, ...) и селектор или URL
+     */
+    public record Step(String page, String action, String selector) {}
+
+    /**
+     * Гистограммы фаз одного шага, создаются при первой записи фазы
+     */
+    public static class StepTimings {
+        private final AtomicReferenceArray<LatencyHistogram> phases =
+                new AtomicReferenceArray<>(Phase.values().length);
+
+        LatencyHistogram histogram(Phase phase) {
+            LatencyHistogram histogram = phases.get(phase.ordinal());
+            if (histogram == null) {
+                phases.compareAndSet(phase.ordinal(), null, new LatencyHistogram());
+                histogram = phases.get(phase.ordinal());
+            }
+            return histogram;
+        }
+
+        // Гистограмма фазы или null, если фаза не записывалась
+        public LatencyHistogram get(Phase phase) {
+            return phases.get(phase.ordinal());
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = get(phase);
+                if (histogram != null) count = Math.max(count, histogram.getCount());
+            }
+            return count;
+        }
+
+        public double getTotalMillis() {
+            double total = 0;
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = get(phase);
+                if (histogram != null) total += histogram.getTotalMillis();
+            }
+            return total;
+        }
+    }
+
+    private final Map<Step, StepTimings> steps = new ConcurrentHashMap<>();
+
+    ActionLatencyRecorder() {}
+
+    private static final class Holder {
+        private static final ActionLatencyRecorder INSTANCE = new ActionLatencyRecorder();
+    }
+
+    public static ActionLatencyRecorder getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public Step step(String page, String action, String selector) {
+        return new Step(page == null ? "" : page, action, selector == null ? "" : selector);
+    }
+
+    // Засекаем время начала фазы
+    public long start() {
+        return System.nanoTime();
+    }
+
+    // Фиксируем время фазы, начатой в start()
+    public void stop(Step step, Phase phase, long startNanos) {
+        steps.computeIfAbsent(step, key -> new StepTimings()).histogram(phase).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public Map<Step, StepTimings> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Самые медленные шаги по суммарному времени всех фаз
+     */
+    public List<Map.Entry<Step, StepTimings>> slowestSteps(int limit) {
+        List<Map.Entry<Step, StepTimings>> sorted = new ArrayList<>(steps.entrySet());
+        sorted.sort(Comparator.comparingDouble(
+                (Map.Entry<Step, StepTimings> entry) -> entry.getValue().getTotalMillis()).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /**
+     * Суммарные гистограммы по действию и фазе: куда уходит время прогона
+     */
+    public Map<String, Map<Phase, LatencyHistogram>> byAction() {
+        Map<String, Map<Phase, LatencyHistogram>> result = new TreeMap<>();
+        steps.forEach((step, timings) -> {
+            Map<Phase, LatencyHistogram> phases = result.computeIfAbsent(step.action(), key -> new EnumMap<>(Phase.class));
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = timings.get(phase);
+                if (histogram != null) {
+                    phases.computeIfAbsent(phase, key -> new LatencyHistogram()).merge(
+                            histogram.nonEmptyBuckets(), histogram.getTotalMicros(), histogram.getMaxMicros());
+                }
+            }
+        });
+        return result;
+    }
+
+    public void printSummary() {
+        if (steps.isEmpty()) return;
+        System.out.println("=== ACTION LATENCY ===");
+        byAction().forEach((action, phases) -> phases.forEach((phase, h) -> System.out.println(String.format(
+                "%-10s %-8s calls: %4d  p50: %8.1f ms  p95: %8.1f ms  max: %8.1f ms  total: %9.1f ms",
+                action, phase.label(), h.getCount(), h.getPercentileMillis(50), h.getPercentileMillis(95),
+                h.getMaxMillis(), h.getTotalMillis()))));
+
+        System.out.println("🐢 Slowest steps:");
+        for (Map.Entry<Step, StepTimings> entry : slowestSteps(5)) {
+            Step step = entry.getKey();
+            System.out.println(String.format("   %9.1f ms  %-10s %s  (%s)", entry.getValue().getTotalMillis(),
+                    step.action(), step.selector(), step.page()));
+        }
+    }
+
+    public void reset() {
+        steps.clear();
+    }
+
+    /**
+     * Раздел HTML отчета: время по фазам и таблица самых медленных шагов
+     */
+    public CoverageReportGenerator.ReportSection slowestStepsSection(int limit) {
+        return writer -> {
+            if (steps.isEmpty()) {
+                return;
+            }
+            double[] phaseTotals = new double[Phase.values().length];
+            steps.values().forEach(timings -> {
+                for (Phase phase : Phase.values()) {
+                    LatencyHistogram histogram = timings.get(phase);
+                    if (histogram != null) phaseTotals[phase.ordinal()] += histogram.getTotalMillis();
+                }
+            });
+
+            writer.write("    <h2>🐢 Slowest steps</h2>\n    <p>");
+            for (Phase phase : Phase.values()) {
+                writer.write((phase.ordinal() > 0 ? " · " : "") + phase.label() + ": "
+                        + String.format(Locale.ROOT, "%.1f s", phaseTotals[phase.ordinal()] / 1000));
+            }
+            writer.write("</p>\n    <table class='pages'><thead><tr><th>Action</th><th>Selector</th><th>Page</th><th>Calls</th>");
+            for (Phase phase : Phase.values()) {
+                writer.write("<th>" + phase.label() + " p95</th>");
+            }
+            writer.write("<th>Max</th><th>Total</th></tr></thead><tbody>\n");
+
+            for (Map.Entry<Step, StepTimings> entry : slowestSteps(limit)) {
+                Step step = entry.getKey();
+                StepTimings timings = entry.getValue();
+                writer.write("        <tr><td>");
+                CoverageReportGenerator.escapeHtml(writer, step.action());
+                writer.write("</td><td>");
+                CoverageReportGenerator.escapeHtml(writer, step.selector());
+                writer.write("</td><td>");
+                CoverageReportGenerator.escapeHtml(writer, step.page());
+                writer.write("</td><td>" + timings.getCount() + "</td>");
+                double max = 0;
+                for (Phase phase : Phase.values()) {
+                    LatencyHistogram histogram = timings.get(phase);
+                    writer.write("<td>" + (histogram == null ? "" : formatMillis(histogram.getPercentileMillis(95))) + "</td>");
+                    if (histogram != null) max = Math.max(max, histogram.getMaxMillis());
+                }
+                writer.write("<td>" + formatMillis(max) + "</td><td>" + formatMillis(timings.getTotalMillis()) + "</td></tr>\n");
+            }
+            writer.write("    </tbody></table>\n");
+        };
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format(Locale.ROOT, "%.1f ms", millis);
+    }
+
+    /**
+     * Выгрузка профиля в JSON: по шагам и фазам - счетчик, сумма, максимум,
+     * перцентили и непустые корзины гистограммы (чтобы форки можно было сложить)
+     */
+    public void writeJson(Path file, String runId) throws IOException {
+        JsonObject root = new JsonObject();
+        root.addProperty("runId", runId);
+        root.addProperty("unit", "us");
+        JsonArray stepsJson = new JsonArray();
+        steps.forEach((step, timings) -> {
+            JsonObject stepJson = new JsonObject();
+            stepJson.addProperty("page", step.page());
+            stepJson.addProperty("action", step.action());
+            stepJson.addProperty("selector", step.selector());
+            JsonObject phasesJson = new JsonObject();
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = timings.get(phase);
+                if (histogram != null) {
+                    phasesJson.add(phase.label(), toJson(histogram));
+                }
+            }
+            stepJson.add("phases", phasesJson);
+            stepsJson.add(stepJson);
+        });
+        root.add("steps", stepsJson);
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(root, writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static JsonObject toJson(LatencyHistogram histogram) {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", histogram.getCount());
+        json.addProperty("totalUs", histogram.getTotalMicros());
+        json.addProperty("maxUs", histogram.getMaxMicros());
+        json.addProperty("p50Ms", histogram.getPercentileMillis(50));
+        json.addProperty("p95Ms", histogram.getPercentileMillis(95));
+        json.addProperty("p99Ms", histogram.getPercentileMillis(99));
+        JsonArray buckets = new JsonArray();
+        for (long[] bucket : histogram.nonEmptyBuckets()) {
+            JsonArray pair = new JsonArray();
+            pair.add(bucket[0]);
+            pair.add(bucket[1]);
+            buckets.add(pair);
+        }
+        json.add("buckets", buckets);
+        return json;
+    }
+
+    /**
+     * Складывает профили всех форков одного запуска (runId == null - все файлы)
+     */
+    public static ActionLatencyRecorder mergeJson(Path directory, String runId) throws IOException {
+        ActionLatencyRecorder merged = new ActionLatencyRecorder();
+        if (!Files.isDirectory(directory)) {
+            return merged;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "latency-*.json")) {
+            for (Path file : files) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    merged.add(JsonParser.parseReader(reader).getAsJsonObject(), runId);
+                } catch (JsonParseException | IllegalStateException e) {
+                    System.err.println("⚠️ Skipping unreadable latency profile: " + file);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private void add(JsonObject root, String runId) {
+        if (runId != null && !runId.equals(root.get("runId").getAsString())) {
+            return;
+        }
+        for (JsonElement element : root.getAsJsonArray("steps")) {
+            JsonObject stepJson = element.getAsJsonObject();
+            Step step = step(stepJson.get("page").getAsString(), stepJson.get("action").getAsString(),
+                    stepJson.get("selector").getAsString());
+            StepTimings timings = steps.computeIfAbsent(step, key -> new StepTimings());
+            JsonObject phasesJson = stepJson.getAsJsonObject("phases");
+            for (Phase phase : Phase.values()) {
+                if (!phasesJson.has(phase.label())) continue;
+                JsonObject histogramJson = phasesJson.getAsJsonObject(phase.label());
+                JsonArray bucketsJson = histogramJson.getAsJsonArray("buckets");
+                long[][] buckets = new long[bucketsJson.size()][];
+                for (int i = 0; i < buckets.length; i++) {
+                    JsonArray pair = bucketsJson.get(i).getAsJsonArray();
+                    buckets[i] = new long[]{pair.get(0).getAsLong(), pair.get(1).getAsLong()};
+                }
+                timings.histogram(phase).merge(buckets,
+                        histogramJson.get("totalUs").getAsLong(), histogramJson.get("maxUs").getAsLong());
+            }
+        }
+    }
+}
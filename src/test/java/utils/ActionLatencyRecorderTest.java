@@ -0,0 +1,46 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка выгрузки профиля задержек в JSON и сложения профилей форков
+ */
+public class ActionLatencyRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testForkProfilesOfSameRunAreMerged() throws Exception {
+        ActionLatencyRecorder fork1 = new ActionLatencyRecorder();
+        ActionLatencyRecorder fork2 = new ActionLatencyRecorder();
+        ActionLatencyRecorder stale = new ActionLatencyRecorder();
+        ActionLatencyRecorder.Step submit = fork1.step("Text Box", "click", "#submit");
+
+        fork1.stop(submit, ActionLatencyRecorder.Phase.ACTION, System.nanoTime() - 5_000_000);
+        fork2.stop(submit, ActionLatencyRecorder.Phase.ACTION, System.nanoTime() - 7_000_000);
+        fork2.stop(submit, ActionLatencyRecorder.Phase.SETTLE, System.nanoTime() - 1_000_000);
+        stale.stop(submit, ActionLatencyRecorder.Phase.ACTION, System.nanoTime());
+        fork1.writeJson(tempDir.resolve("latency-fork-1.json"), "run-a");
+        fork2.writeJson(tempDir.resolve("latency-fork-2.json"), "run-a");
+        stale.writeJson(tempDir.resolve("latency-fork-3.json"), "run-old");
+
+        ActionLatencyRecorder merged = ActionLatencyRecorder.mergeJson(tempDir, "run-a");
+
+        ActionLatencyRecorder.StepTimings timings = merged.getSteps().get(submit);
+        assertEquals(2, timings.get(ActionLatencyRecorder.Phase.ACTION).getCount());
+        assertEquals(1, timings.get(ActionLatencyRecorder.Phase.SETTLE).getCount());
+        assertNull(timings.get(ActionLatencyRecorder.Phase.WAIT));
+        assertTrue(timings.get(ActionLatencyRecorder.Phase.ACTION).getMaxMillis() >= 7.0);
+
+        StringWriter html = new StringWriter();
+        merged.slowestStepsSection(10).write(html);
+        assertTrue(html.toString().contains("<td>click</td><td>#submit</td><td>Text Box</td><td>2</td>"));
+    }
+}
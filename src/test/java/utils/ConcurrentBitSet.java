@@ -0,0 +1,102 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасный растущий набор битов для номеров интернированных элементов.
+ * Биты лежат в блоках AtomicLongArray по 64K: установка бита - один CAS без блокировок,
+ * новый блок выделяется только при росте номеров, мощность считается при установке
+ */
+public class ConcurrentBitSet {
+
+    private static final int WORDS_PER_CHUNK = 1024;
+    private static final int BITS_PER_CHUNK = WORDS_PER_CHUNK * Long.SIZE;
+
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+    private final LongAdder cardinality = new LongAdder();
+
+    /**
+     * Устанавливает бит и возвращает true, если раньше он не был установлен
+     */
+    public boolean set(int index) {
+        AtomicLongArray chunk = chunk(index / BITS_PER_CHUNK, true);
+        int word = (index % BITS_PER_CHUNK) >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = chunk.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (chunk.compareAndSet(word, current, current | mask)) {
+                cardinality.increment();
+                return true;
+            }
+        }
+    }
+
+    public boolean get(int index) {
+        if (index < 0) {
+            return false;
+        }
+        AtomicLongArray chunk = chunk(index / BITS_PER_CHUNK, false);
+        return chunk != null && (chunk.get((index % BITS_PER_CHUNK) >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Номер следующего установленного бита начиная с from или -1
+     */
+    public int nextSetBit(int from) {
+        AtomicLongArray[] current = chunks;
+        int chunkIndex = from / BITS_PER_CHUNK;
+        int word = (from % BITS_PER_CHUNK) >>> 6;
+        long mask = -1L << from;
+        for (; chunkIndex < current.length; chunkIndex++, word = 0, mask = -1L) {
+            AtomicLongArray chunk = current[chunkIndex];
+            if (chunk == null) {
+                continue;
+            }
+            for (; word < WORDS_PER_CHUNK; word++, mask = -1L) {
+                long bits = chunk.get(word) & mask;
+                if (bits != 0) {
+                    return chunkIndex * BITS_PER_CHUNK + word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                }
+            }
+        }
+        return -1;
+    }
+
+    public int cardinality() {
+        return cardinality.intValue();
+    }
+
+    // Сброс между запусками; одновременные set() во время сброса не поддерживаются
+    public synchronized void clear() {
+        chunks = new AtomicLongArray[0];
+        cardinality.reset();
+    }
+
+    private AtomicLongArray chunk(int chunkIndex, boolean create) {
+        AtomicLongArray[] current = chunks;
+        if (chunkIndex < current.length && current[chunkIndex] != null) {
+            return current[chunkIndex];
+        }
+        if (!create) {
+            return null;
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunkIndex >= current.length) {
+                current = Arrays.copyOf(current, Math.max(chunkIndex + 1, current.length * 2));
+            } else if (current[chunkIndex] != null) {
+                return current[chunkIndex];
+            } else {
+                current = current.clone();
+            }
+            current[chunkIndex] = new AtomicLongArray(WORDS_PER_CHUNK);
+            chunks = current;
+            return current[chunkIndex];
+        }
+    }
+}
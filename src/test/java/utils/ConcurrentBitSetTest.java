@@ -0,0 +1,59 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка набора битов, на котором трекер хранит инвентарь и покрытие
+ */
+public class ConcurrentBitSetTest {
+
+    @Test
+    void testSetReportsOnlyFirstInsertAndCountsCardinality() {
+        ConcurrentBitSet bits = new ConcurrentBitSet();
+
+        assertTrue(bits.set(3));
+        assertFalse(bits.set(3));
+        assertTrue(bits.set(200_000));
+
+        assertEquals(2, bits.cardinality());
+        assertTrue(bits.get(200_000));
+        assertFalse(bits.get(4));
+        assertFalse(bits.get(-1));
+        assertFalse(bits.get(10_000_000));
+    }
+
+    @Test
+    void testNextSetBitWalksAcrossChunks() {
+        ConcurrentBitSet bits = new ConcurrentBitSet();
+        int[] indexes = {0, 63, 64, 65_535, 65_536, 300_001};
+        for (int index : indexes) {
+            bits.set(index);
+        }
+
+        List<Integer> found = new ArrayList<>();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            found.add(i);
+        }
+        assertEquals(IntStream.of(indexes).boxed().toList(), found);
+
+        bits.clear();
+        assertEquals(-1, bits.nextSetBit(0));
+        assertEquals(0, bits.cardinality());
+    }
+
+    @Test
+    void testParallelSetsAreNotLost() {
+        ConcurrentBitSet bits = new ConcurrentBitSet();
+        IntStream.range(0, 1_000_000).parallel().forEach(i -> bits.set(i * 3));
+
+        assertEquals(1_000_000, bits.cardinality());
+        assertTrue(bits.get(2_999_997));
+        assertFalse(bits.get(2_999_998));
+    }
+}
@@ -0,0 +1,269 @@
+package utils;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Очередь событий покрытия и логов между потоками тестов и фоновым потоком.
+ * Тест только кладет событие в кольцевой буфер фиксированного размера (много писателей,
+ * один читатель, без блокировок и аллокаций), а фоновый поток пачками переносит
+ * события в трекер и печатает логи одной записью в консоль. В @AfterAll вызывается flush().
+ * Синхронный режим (-Dui.coverage.async=false) применяет события сразу в потоке теста
+ */
+public class CoverageEventBus {
+
+    private static final int ADD = 0;
+    private static final int COVER = 1;
+    private static final int LOG = 2;
+    private static final int FORMAT = 3;
+
+    private static final int BATCH_SIZE = 512;
+    // Событиям не нужна малая задержка: flush(), close() и полный буфер будят поток сами,
+    // поэтому простаивающий читатель просыпается редко и не тратит процессор форка
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final UICoverageTracker tracker;
+    private final TestImpactMap impact;
+    private final PrintStream out;
+    private final boolean async;
+
+    // Слоты кольца. Номер в sequences говорит, чей ход: pos - слот свободен для писателя
+    // с позицией pos, pos + 1 - событие опубликовано и ждет читателя (схема Вьюкова)
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final int[] kinds;
+    // ADD/COVER: отпечаток, страница, тип; LOG: шаблон и до двух аргументов
+    private final String[] texts;
+    private final String[] firstArgs;
+    private final String[] secondArgs;
+    private final ActionKind[] actions;
+    // Тест, который выполнил действие (для карты тест -> элементы)
+    private final String[] tests;
+
+    private final AtomicLong tail = new AtomicLong();
+    // Позиция читателя; меняет только фоновый поток, flush() ждет по ней
+    private volatile long head;
+    private final Thread consumer;
+    private volatile boolean closed;
+    private final StringBuilder logBuffer = new StringBuilder();
+
+    // Конструктор для Singleton (доступен в пакете для изолированных проверок)
+    CoverageEventBus(UICoverageTracker tracker, TestImpactMap impact, PrintStream out, int capacity, boolean async) {
+        this.tracker = tracker;
+        this.impact = impact;
+        this.out = out;
+        this.async = async;
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.kinds = new int[size];
+        this.texts = new String[size];
+        this.firstArgs = new String[size];
+        this.secondArgs = new String[size];
+        this.actions = new ActionKind[size];
+        this.tests = new String[size];
+        if (async) {
+            consumer = new Thread(this::consume, "ui-coverage-events");
+            consumer.setDaemon(true);
+            consumer.start();
+        } else {
+            consumer = null;
+        }
+    }
+
+    // Ленивая и безопасная публикация экземпляра через holder-класс
+    private static final class Holder {
+        private static final CoverageEventBus INSTANCE = new CoverageEventBus(UICoverageTracker.getInstance(),
+                TestImpactMap.getInstance(), System.out, Integer.getInteger("ui.coverage.events.capacity", 65_536),
+                Boolean.parseBoolean(System.getProperty("ui.coverage.async", "true")));
+    }
+
+    public static CoverageEventBus getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Элемент найден на странице
+    public void elementFound(String fingerprint, String page, String type) {
+        publish(ADD, fingerprint, page, type, null);
+    }
+
+    // Тест выполнил действие над элементом; testId может быть null, если тест неизвестен
+    public void elementCovered(String fingerprint, String page, String type, ActionKind kind, String testId) {
+        publish(COVER, fingerprint, page, type, kind, testId);
+    }
+
+    public void log(String message) {
+        publish(LOG, message, null, null, null);
+    }
+
+    /**
+     * Строка лога по шаблону String.format. Форматирование выполняет фоновый поток,
+     * поэтому тест не собирает строку сам
+     */
+    public void log(String format, String arg) {
+        publish(FORMAT, format, arg, null, null);
+    }
+
+    public void log(String format, String firstArg, String secondArg) {
+        publish(FORMAT, format, firstArg, secondArg, null);
+    }
+
+    private void publish(int kind, String text, String firstArg, String secondArg, ActionKind action) {
+        publish(kind, text, firstArg, secondArg, action, null);
+    }
+
+    private void publish(int kind, String text, String firstArg, String secondArg, ActionKind action, String test) {
+        if (!async) {
+            synchronized (this) {
+                apply(kind, text, firstArg, secondArg, action, test);
+                printLogs();
+            }
+            return;
+        }
+        long pos = claim();
+        int slot = (int) pos & mask;
+        kinds[slot] = kind;
+        texts[slot] = text;
+        firstArgs[slot] = firstArg;
+        secondArgs[slot] = secondArg;
+        actions[slot] = action;
+        tests[slot] = test;
+        // Запись номера публикует поля слота для читателя
+        sequences.set(slot, pos + 1);
+    }
+
+    private long claim() {
+        int spins = 0;
+        while (true) {
+            long pos = tail.get();
+            long difference = sequences.get((int) pos & mask) - pos;
+            if (difference == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    return pos;
+                }
+            } else if (difference < 0) {
+                // Буфер полон: события покрытия не теряем, ждем читателя
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.unpark(consumer);
+                    LockSupport.parkNanos(50_000);
+                }
+            }
+        }
+    }
+
+    private void consume() {
+        long idleNanos = 0;
+        while (!closed) {
+            int drained = drain();
+            if (drained > 0) {
+                idleNanos = 0;
+            } else if (idleNanos == 0) {
+                Thread.onSpinWait();
+                idleNanos = 1_000;
+            } else {
+                // Без событий засыпаем все дольше, flush() и полный буфер будят поток
+                LockSupport.parkNanos(idleNanos);
+                idleNanos = Math.min(idleNanos * 2, MAX_IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // Переносит до BATCH_SIZE опубликованных событий и печатает их логи одной записью
+    private int drain() {
+        long pos = head;
+        int drained = 0;
+        while (drained < BATCH_SIZE) {
+            int slot = (int) pos & mask;
+            if (sequences.get(slot) != pos + 1) {
+                break;
+            }
+            try {
+                apply(kinds[slot], texts[slot], firstArgs[slot], secondArgs[slot], actions[slot], tests[slot]);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Could not apply coverage event: " + e);
+            }
+            texts[slot] = null;
+            firstArgs[slot] = null;
+            secondArgs[slot] = null;
+            actions[slot] = null;
+            tests[slot] = null;
+            sequences.set(slot, pos + mask + 1);
+            pos++;
+            drained++;
+        }
+        if (drained > 0) {
+            printLogs();
+            head = pos;
+        }
+        return drained;
+    }
+
+    private void apply(int kind, String text, String firstArg, String secondArg, ActionKind action, String test) {
+        switch (kind) {
+            case ADD -> tracker.addElement(text, firstArg, secondArg);
+            case COVER -> {
+                tracker.addElement(text, firstArg, secondArg);
+                tracker.markAsCovered(text, action);
+                if (test != null) {
+                    impact.record(test, text);
+                }
+            }
+            case LOG -> logBuffer.append(text).append(System.lineSeparator());
+            default -> logBuffer.append(String.format(text, firstArg, secondArg)).append(System.lineSeparator());
+        }
+    }
+
+    private void printLogs() {
+        if (logBuffer.length() > 0) {
+            out.print(logBuffer);
+            out.flush();
+            logBuffer.setLength(0);
+        }
+    }
+
+    /**
+     * Дожидается, пока фоновый поток применит все события, опубликованные до вызова
+     */
+    public void flush() {
+        if (!async) {
+            return;
+        }
+        long target = tail.get();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (head < target) {
+            if (System.nanoTime() > deadline) {
+                System.err.println("⚠️ Coverage events were not applied in time: " + (target - head) + " pending");
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Применяет оставшиеся события и останавливает фоновый поток. Общий экземпляр живет
+     * до конца JVM, закрываются только отдельные очереди (например, в проверках)
+     */
+    void close() throws InterruptedException {
+        if (!async || closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        LockSupport.unpark(consumer);
+        consumer.join(FLUSH_TIMEOUT_NANOS / 1_000_000);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+}
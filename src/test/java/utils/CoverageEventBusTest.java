@@ -0,0 +1,93 @@
+package utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка очереди событий покрытия без браузера: много писателей, маленький буфер
+ */
+public class CoverageEventBusTest {
+
+    private final UICoverageTracker tracker = new UICoverageTracker();
+    private final TestImpactMap impact = new TestImpactMap();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+    // Очереди теста: их фоновые потоки останавливаются после каждой проверки
+    private final List<CoverageEventBus> buses = new ArrayList<>();
+
+    private CoverageEventBus bus(int capacity, boolean async) {
+        CoverageEventBus events = new CoverageEventBus(tracker, impact, out, capacity, async);
+        buses.add(events);
+        return events;
+    }
+
+    @AfterEach
+    void stopConsumers() throws InterruptedException {
+        for (CoverageEventBus events : buses) {
+            events.close();
+        }
+    }
+
+    @Test
+    void testFlushAppliesEveryEventFromManyThreads() {
+        // Буфер намного меньше числа событий: писатели должны дожидаться читателя, а не терять события
+        CoverageEventBus events = bus(16, true);
+        IntStream.range(0, 4).parallel().forEach(worker -> {
+            for (int i = 0; i < 5_000; i++) {
+                events.elementFound("id:field-" + i, "Page", "input");
+                if (i % 2 == 0) {
+                    events.elementCovered("id:field-" + i, "Page", "input", ActionKind.FILL, "FormTest#worker" + worker);
+                }
+            }
+        });
+        events.flush();
+
+        assertEquals(5_000, tracker.getTotalCount());
+        assertEquals(2_500, tracker.getCoveredCount());
+        assertEquals(4, tracker.getHits("id:field-0")[ActionKind.FILL.ordinal()]);
+        assertEquals(10_000, tracker.getTotalHits());
+        assertEquals(new UICoverageTracker.ElementInfo("Page", "input"), tracker.getElementInfo("id:field-1"));
+        assertEquals(2_500, impact.current().get("FormTest#worker3").size());
+    }
+
+    @Test
+    void testLogsKeepOrderOfEachThreadAndAreFormattedByConsumer() {
+        CoverageEventBus events = bus(64, true);
+        IntStream.range(0, 3).parallel().forEach(worker -> {
+            for (int i = 0; i < 200; i++) {
+                events.log("%s:%s", String.valueOf(worker), String.valueOf(i));
+            }
+        });
+        events.log("100% raw");
+        events.flush();
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(601, lines.size());
+        assertEquals("100% raw", lines.get(600));
+        for (int worker = 0; worker < 3; worker++) {
+            String prefix = worker + ":";
+            List<Integer> order = lines.stream().filter(line -> line.startsWith(prefix))
+                    .map(line -> Integer.parseInt(line.substring(prefix.length()))).toList();
+            assertEquals(IntStream.range(0, 200).boxed().toList(), order);
+        }
+    }
+
+    @Test
+    void testSyncModeAppliesImmediately() {
+        CoverageEventBus events = bus(16, false);
+        events.elementCovered("role:button:Submit", "Form", "button", ActionKind.CLICK, null);
+        events.log("✅ Clicked: %s", "Submit");
+
+        assertEquals(1, tracker.getCoveredCount());
+        assertEquals("✅ Clicked: Submit", output.toString(StandardCharsets.UTF_8).strip());
+    }
+}
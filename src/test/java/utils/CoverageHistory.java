@@ -0,0 +1,472 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * История покрытия между сборками в локальном каталоге (.ui-coverage).
+ * Устроена как журнал: runs.log дописывается по строке на прогон (коммит, итоги),
+ * а инвентарь прогона со страницами и покрытием лежит в отдельном сегменте runs/*.tsv.gz.
+ * Тренд читает только журнал, дельта ("что перестало покрываться") читает два сегмента.
+ * Старые прогоны удаляются компактированием, остаются последние ui.coverage.history.keep
+ */
+public class CoverageHistory {
+
+    public static final String DEFAULT_DIR = ".ui-coverage";
+    public static final int DEFAULT_KEEP = 30;
+
+    private static final String INDEX = "runs.log";
+    private static final String LOCK = "history.lock";
+    private static final String SEGMENTS = "runs";
+
+    private final Path directory;
+    private final int keepRuns;
+
+    /**
+     * Запись журнала об одном прогоне
+     */
+    public record RunEntry(String runId, String commit, long timestamp, int total, int covered, String segment) {
+        public double coveragePercentage() {
+            return total == 0 ? 0.0 : (double) covered / total * 100;
+        }
+    }
+
+    /**
+     * Изменения покрытия между двумя прогонами
+     */
+    public static class Delta {
+        private final RunEntry from;
+        private final RunEntry to;
+        private final Map<String, String> pageOf = new HashMap<>();
+        private final Set<String> newlyUncovered = new TreeSet<>();
+        private final Set<String> newlyCovered = new TreeSet<>();
+        private final Set<String> added = new TreeSet<>();
+        private final Set<String> removed = new TreeSet<>();
+
+        Delta(RunEntry from, RunEntry to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public RunEntry getFrom() {
+            return from;
+        }
+
+        public RunEntry getTo() {
+            return to;
+        }
+
+        // Были покрыты в прошлом прогоне, есть на странице сейчас, но тестами не затронуты
+        public Set<String> getNewlyUncovered() {
+            return newlyUncovered;
+        }
+
+        public Set<String> getNewlyCovered() {
+            return newlyCovered;
+        }
+
+        // Новые элементы инвентаря
+        public Set<String> getAdded() {
+            return added;
+        }
+
+        // Элементы, которые исчезли со страниц
+        public Set<String> getRemoved() {
+            return removed;
+        }
+
+        // Новые непокрытые элементы по страницам
+        public Map<String, List<String>> newlyUncoveredByPage() {
+            Map<String, List<String>> byPage = new TreeMap<>();
+            for (String element : newlyUncovered) {
+                byPage.computeIfAbsent(pageOf.getOrDefault(element, ""), key -> new ArrayList<>()).add(element);
+            }
+            return byPage;
+        }
+    }
+
+    public CoverageHistory(Path directory, int keepRuns) {
+        this.directory = directory;
+        this.keepRuns = Math.max(1, keepRuns);
+    }
+
+    public static CoverageHistory fromSystemProperties() {
+        return new CoverageHistory(
+                Paths.get(System.getProperty("ui.coverage.history.dir", DEFAULT_DIR)),
+                Integer.getInteger("ui.coverage.history.keep", DEFAULT_KEEP));
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("ui.coverage.history"));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Коммит сборки: -Dui.coverage.commit, переменные CI или git rev-parse
+     */
+    public static String currentCommit() {
+        String commit = System.getProperty("ui.coverage.commit");
+        for (String variable : new String[]{"GITHUB_SHA", "CI_COMMIT_SHA", "GIT_COMMIT"}) {
+            if (commit == null || commit.isBlank()) {
+                commit = System.getenv(variable);
+            }
+        }
+        if (commit == null || commit.isBlank()) {
+            commit = gitHead();
+        }
+        return commit == null || commit.isBlank() ? "unknown" : commit.trim();
+    }
+
+    private static String gitHead() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            boolean finished = process.waitFor(5, TimeUnit.SECONDS);
+            return finished && process.exitValue() == 0 ? output : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Сохраняет прогон. Повторная запись того же runId (другой форк дописал шард)
+     * заменяет сегмент и добавляет в журнал новую строку, при чтении побеждает последняя.
+     * Сегмент и строка журнала пишутся под одной файловой блокировкой, поэтому итоги прогона
+     * и его сегмент всегда от одного форка. Покрытие прогона по мере слияния шардов только растет:
+     * запись, которая не добавляет элементов к уже сохраненной, пропускается и возвращается сохраненная
+     */
+    public RunEntry record(String runId, String commit, Set<String> allElements, Set<String> coveredElements,
+                           Function<String, UICoverageTracker.ElementInfo> elementInfo) throws IOException {
+        Path segments = directory.resolve(SEGMENTS);
+        Files.createDirectories(segments);
+
+        int total = allElements.size();
+        for (String element : coveredElements) {
+            if (!allElements.contains(element)) total++;
+        }
+
+        try (FileChannel lockChannel = openLock()) {
+            // Блокировка снимается при закрытии канала
+            lockChannel.lock();
+            RunEntry previous = findRun(readRuns(), runId);
+            if (previous != null && previous.total() >= total && previous.covered() >= coveredElements.size()) {
+                return previous;
+            }
+
+            String segment = segmentName(runId);
+            Path temp = Files.createTempFile(segments, segment, ".tmp");
+            try {
+                try (Writer writer = openWriter(temp)) {
+                    for (String element : allElements) {
+                        writeElement(writer, element, coveredElements.contains(element), elementInfo.apply(element));
+                    }
+                    for (String element : coveredElements) {
+                        if (!allElements.contains(element)) {
+                            writeElement(writer, element, true, elementInfo.apply(element));
+                        }
+                    }
+                }
+                Files.move(temp, segments.resolve(segment), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            RunEntry entry = new RunEntry(runId, commit, System.currentTimeMillis(), total, coveredElements.size(), segment);
+            String line = formatEntry(entry) + "\n";
+            try (FileChannel index = FileChannel.open(directory.resolve(INDEX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                index.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            }
+            if (readRuns().size() > keepRuns) {
+                compactLocked();
+            }
+            return entry;
+        }
+    }
+
+    private static RunEntry findRun(List<RunEntry> runs, String runId) {
+        for (RunEntry run : runs) {
+            if (run.runId().equals(runId)) {
+                return run;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Прогоны от старых к новым, по одной записи на runId
+     */
+    public List<RunEntry> runs() throws IOException {
+        return readRuns();
+    }
+
+    // Последние limit прогонов для тренда
+    public List<RunEntry> trend(int limit) throws IOException {
+        List<RunEntry> runs = readRuns();
+        return runs.subList(Math.max(0, runs.size() - limit), runs.size());
+    }
+
+    /**
+     * Дельта последнего прогона относительно предыдущего или null, если сравнивать не с чем
+     */
+    public Delta latestDelta() throws IOException {
+        List<RunEntry> runs = readRuns();
+        if (runs.size() < 2) {
+            return null;
+        }
+        return delta(runs.get(runs.size() - 2), runs.get(runs.size() - 1));
+    }
+
+    public Delta delta(RunEntry from, RunEntry to) throws IOException {
+        Delta delta = new Delta(from, to);
+        Map<String, Boolean> before = new HashMap<>();
+        readSegment(from.segment(), (element, covered, page) -> before.put(element, covered));
+
+        Set<String> seen = new HashSet<>();
+        readSegment(to.segment(), (element, covered, page) -> {
+            seen.add(element);
+            delta.pageOf.put(element, page);
+            Boolean wasCovered = before.get(element);
+            if (wasCovered == null) {
+                delta.added.add(element);
+            } else if (wasCovered && !covered) {
+                delta.newlyUncovered.add(element);
+            } else if (!wasCovered && covered) {
+                delta.newlyCovered.add(element);
+            }
+        });
+        for (String element : before.keySet()) {
+            if (!seen.contains(element)) delta.removed.add(element);
+        }
+        return delta;
+    }
+
+    /**
+     * Оставляет последние keepRuns прогонов: переписывает журнал без дублей
+     * и удаляет сегменты, на которые больше никто не ссылается
+     */
+    public void compact() throws IOException {
+        Files.createDirectories(directory);
+        try (FileChannel lockChannel = openLock()) {
+            lockChannel.lock();
+            compactLocked();
+        }
+    }
+
+    private void compactLocked() throws IOException {
+        List<RunEntry> runs = readRuns();
+        List<RunEntry> kept = runs.subList(Math.max(0, runs.size() - keepRuns), runs.size());
+
+        Path temp = directory.resolve(INDEX + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (RunEntry entry : kept) {
+                writer.write(formatEntry(entry));
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Set<String> live = new HashSet<>();
+        kept.forEach(entry -> live.add(entry.segment()));
+        for (RunEntry entry : runs) {
+            if (!live.contains(entry.segment())) {
+                Files.deleteIfExists(directory.resolve(SEGMENTS).resolve(entry.segment()));
+            }
+        }
+    }
+
+    // Строка журнала: runId, коммит, время, всего, покрыто, сегмент
+    private static String formatEntry(RunEntry entry) {
+        return String.join("\t", escape(entry.runId()), escape(entry.commit()),
+                Long.toString(entry.timestamp()), Integer.toString(entry.total()),
+                Integer.toString(entry.covered()), escape(entry.segment()));
+    }
+
+    private List<RunEntry> readRuns() throws IOException {
+        // LinkedHashMap с удалением перед вставкой: порядок по последней записи прогона
+        Map<String, RunEntry> byRun = new LinkedHashMap<>();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(directory.resolve(INDEX), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return new ArrayList<>();
+        }
+        for (String line : lines) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 6) {
+                continue; // строка, оборванная при аварийном завершении
+            }
+            try {
+                RunEntry entry = new RunEntry(unescape(fields[0]), unescape(fields[1]), Long.parseLong(fields[2]),
+                        Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), unescape(fields[5]));
+                byRun.remove(entry.runId());
+                byRun.put(entry.runId(), entry);
+            } catch (NumberFormatException e) {
+                // Поврежденная строка журнала не должна ломать всю историю
+            }
+        }
+        return new ArrayList<>(byRun.values());
+    }
+
+    private interface SegmentVisitor {
+        void element(String element, boolean covered, String page);
+    }
+
+    private void readSegment(String segment, SegmentVisitor visitor) throws IOException {
+        Path file = directory.resolve(SEGMENTS).resolve(segment);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 4) {
+                    visitor.element(unescape(fields[3]), "1".equals(fields[0]), unescape(fields[1]));
+                }
+            }
+        }
+    }
+
+    // Строка сегмента: покрыт, страница, тип, идентификатор
+    private static void writeElement(Writer writer, String element, boolean covered,
+                                     UICoverageTracker.ElementInfo info) throws IOException {
+        writer.write(covered ? '1' : '0');
+        writer.write('\t');
+        writer.write(escape(info == null || info.page() == null ? "" : info.page()));
+        writer.write('\t');
+        writer.write(escape(info == null || info.type() == null ? "" : info.type()));
+        writer.write('\t');
+        writer.write(escape(element));
+        writer.write('\n');
+    }
+
+    private static Writer openWriter(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(path)), StandardCharsets.UTF_8));
+    }
+
+    private FileChannel openLock() throws IOException {
+        return FileChannel.open(directory.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    // Имя сегмента из runId: читаемая часть плюс хэш против совпадений после замены символов
+    static String segmentName(String runId) {
+        String slug = runId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9-]+", "-");
+        return slug + "-" + Integer.toHexString(runId.hashCode()) + ".tsv.gz";
+    }
+
+    static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Печатает тренд и то, что перестало покрываться с прошлой сборки
+     */
+    public void printSummary(int trendLength) throws IOException {
+        List<RunEntry> trend = trend(trendLength);
+        if (trend.isEmpty()) {
+            return;
+        }
+        System.out.println("=== UI COVERAGE TREND ===");
+        for (RunEntry entry : trend) {
+            System.out.println(String.format("%s  %-12s %6.2f%%  (%d/%d)", entry.runId(), entry.commit(),
+                    entry.coveragePercentage(), entry.covered(), entry.total()));
+        }
+
+        Delta delta = latestDelta();
+        if (delta == null) {
+            return;
+        }
+        System.out.println("📈 Since last build: +" + delta.getNewlyCovered().size() + " covered, "
+                + delta.getNewlyUncovered().size() + " newly uncovered, "
+                + delta.getAdded().size() + " added, " + delta.getRemoved().size() + " removed");
+        delta.newlyUncoveredByPage().forEach((page, elements) -> {
+            System.out.println("📉 " + (page.isEmpty() ? "unknown page" : page) + ":");
+            elements.stream().limit(20).forEach(element -> System.out.println("   ✗ " + element));
+            if (elements.size() > 20) {
+                System.out.println("   ... and " + (elements.size() - 20) + " more");
+            }
+        });
+    }
+
+    /**
+     * Запрос истории без запуска тестов:
+     * java utils.CoverageHistory [trend|delta|compact] [dir]
+     */
+    public static void main(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "trend";
+        CoverageHistory history = args.length > 1
+                ? new CoverageHistory(Paths.get(args[1]), Integer.getInteger("ui.coverage.history.keep", DEFAULT_KEEP))
+                : fromSystemProperties();
+        switch (command) {
+            case "trend" -> history.printSummary(Integer.getInteger("ui.coverage.history.trend", 10));
+            case "delta" -> {
+                Delta delta = history.latestDelta();
+                if (delta == null) {
+                    System.out.println("Not enough runs to compare");
+                    return;
+                }
+                delta.getNewlyUncovered().forEach(element -> System.out.println("✗ " + element));
+            }
+            case "compact" -> {
+                history.compact();
+                System.out.println("🧹 Kept " + history.runs().size() + " run(s)");
+            }
+            default -> throw new IllegalArgumentException("Unknown command: " + command + " (expected trend|delta|compact)");
+        }
+    }
+}
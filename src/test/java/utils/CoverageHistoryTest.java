@@ -0,0 +1,73 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка истории покрытия между прогонами
+ */
+public class CoverageHistoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDeltaReportsNewlyUncoveredElementsByPage() throws Exception {
+        CoverageHistory history = new CoverageHistory(tempDir, 10);
+        Map<String, UICoverageTracker.ElementInfo> info = Map.of(
+                "id:submit", new UICoverageTracker.ElementInfo("Text Box", "button"));
+
+        history.record("run-1", "aaa", Set.of("id:submit", "id:userName", "id:old"),
+                Set.of("id:submit"), info::get);
+        history.record("run-2", "bbb", Set.of("id:submit", "id:userName", "id:new"),
+                Set.of("id:userName"), info::get);
+
+        CoverageHistory.Delta delta = history.latestDelta();
+        assertEquals("run-1", delta.getFrom().runId());
+        assertEquals(Set.of("id:submit"), delta.getNewlyUncovered());
+        assertEquals(Set.of("id:userName"), delta.getNewlyCovered());
+        assertEquals(Set.of("id:new"), delta.getAdded());
+        assertEquals(Set.of("id:old"), delta.getRemoved());
+        assertEquals(Map.of("Text Box", List.of("id:submit")), delta.newlyUncoveredByPage());
+    }
+
+    @Test
+    void testRecordingSameRunReplacesItsEntry() throws Exception {
+        CoverageHistory history = new CoverageHistory(tempDir, 10);
+
+        history.record("run-1", "aaa", Set.of("a\tb"), Set.of(), id -> null);
+        history.record("run-1", "aaa", Set.of("a\tb", "c"), Set.of("c"), id -> null);
+
+        List<CoverageHistory.RunEntry> runs = history.runs();
+        assertEquals(1, runs.size());
+        assertEquals(2, runs.get(0).total());
+        assertEquals(1, runs.get(0).covered());
+
+        // Форк, который слил меньше шардов и закончил позже, не затирает более полный прогон
+        CoverageHistory.RunEntry stale = history.record("run-1", "aaa", Set.of("a\tb"), Set.of(), id -> null);
+        assertEquals(runs.get(0), stale);
+        assertEquals(List.of(runs.get(0)), history.runs());
+    }
+
+    @Test
+    void testCompactionKeepsLatestRunsAndDropsTheirSegments() throws Exception {
+        CoverageHistory history = new CoverageHistory(tempDir, 2);
+
+        for (int run = 1; run <= 4; run++) {
+            history.record("run-" + run, "c" + run, Set.of("id:a"), Set.of(), id -> null);
+        }
+
+        List<CoverageHistory.RunEntry> runs = history.runs();
+        assertEquals(List.of("run-3", "run-4"), runs.stream().map(CoverageHistory.RunEntry::runId).toList());
+        assertFalse(Files.exists(tempDir.resolve("runs").resolve(CoverageHistory.segmentName("run-1"))));
+        assertTrue(Files.exists(tempDir.resolve("runs").resolve(CoverageHistory.segmentName("run-4"))));
+    }
+}
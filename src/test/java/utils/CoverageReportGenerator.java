@@ -1,97 +1,621 @@
 package utils;
 
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Генератор HTML отчетов о покрытии UI
+ * Генератор HTML отчетов о покрытии UI.
+ * Отчет пишется потоково через буфер в UTF-8: память не растет с числом элементов,
+ * а для путей с расширением .gz вывод дополнительно сжимается.
+ * Данные элементов лежат в отдельном файле *.data.js и рисуются в браузере
+ * виртуализированным списком с поиском, фильтрами и группировкой по страницам,
+ * счетчики действий показываются тепловой картой самых нагруженных элементов
  */
 public class CoverageReportGenerator {
 
-    public static void generateHTMLReport(Set<String> allElements, Set<String> coveredElements, String filePath) {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            double coveragePercent = allElements.isEmpty() ? 0 : (double) coveredElements.size() / allElements.size() * 100;
-
-            writer.write("<!DOCTYPE html>\n");
-            writer.write("<html lang='en'>\n");
-            writer.write("<head>\n");
-            writer.write("    <meta charset='UTF-8'>\n");
-            writer.write("    <title>UI Coverage Report</title>\n");
-            writer.write("    <style>\n");
-            writer.write("        body { font-family: Arial, sans-serif; margin: 20px; line-height: 1.6; }\n");
-            writer.write("        .summary { background: #f5f5f5; padding: 20px; border-radius: 8px; margin-bottom: 20px; }\n");
-            writer.write("        .coverage-bar { background: #e0e0e0; height: 25px; border-radius: 12px; margin: 15px 0; overflow: hidden; }\n");
-            writer.write("        .coverage-fill { background: #4CAF50; height: 100%; transition: width 0.5s; }\n");
-            writer.write("        .element-list { margin: 20px 0; }\n");
-            writer.write("        .covered { color: #4CAF50; padding: 4px 8px; margin: 2px 0; background: #f8fff8; border-left: 3px solid #4CAF50; }\n");
-            writer.write("        .uncovered { color: #f44336; padding: 4px 8px; margin: 2px 0; background: #fff8f8; border-left: 3px solid #f44336; }\n");
-            writer.write("        .stats { display: flex; gap: 20px; margin: 10px 0; }\n");
-            writer.write("        .stat-box { padding: 10px; background: white; border-radius: 5px; flex: 1; text-align: center; }\n");
-            writer.write("    </style>\n");
-            writer.write("</head>\n");
-            writer.write("<body>\n");
-
-            // Заголовок и суммарная статистика
-            writer.write("    <h1>🎯 UI Coverage Report</h1>\n");
-            writer.write("    <div class='summary'>\n");
-            writer.write("        <h2>📊 Summary</h2>\n");
-            writer.write("        <div class='stats'>\n");
-            writer.write("            <div class='stat-box'><h3>" + allElements.size() + "</h3><p>Total Elements</p></div>\n");
-            writer.write("            <div class='stat-box'><h3 style='color: #4CAF50'>" + coveredElements.size() + "</h3><p>Covered Elements</p></div>\n");
-            writer.write("            <div class='stat-box'><h3 style='color: #f44336'>" + (allElements.size() - coveredElements.size()) + "</h3><p>Uncovered Elements</p></div>\n");
-            writer.write("            <div class='stat-box'><h3>" + String.format("%.1f", coveragePercent) + "%</h3><p>Coverage</p></div>\n");
-            writer.write("        </div>\n");
-            writer.write("        <div class='coverage-bar'>\n");
-            writer.write("            <div class='coverage-fill' style='width: " + coveragePercent + "%'></div>\n");
-            writer.write("        </div>\n");
-            writer.write("    </div>\n");
-
-            // Список покрытых элементов
-            writer.write("    <div class='element-list'>\n");
-            writer.write("        <h2>✅ Covered Elements (" + coveredElements.size() + ")</h2>\n");
-            if (coveredElements.isEmpty()) {
-                writer.write("        <p>No elements covered yet</p>\n");
-            } else {
-                for (String element : coveredElements) {
-                    writer.write("        <div class='covered'>✓ " + escapeHtml(element) + "</div>\n");
-                }
-            }
-            writer.write("    </div>\n");
-
-            // Список непокрытых элементов
-            writer.write("    <div class='element-list'>\n");
-            writer.write("        <h2>❌ Uncovered Elements (" + (allElements.size() - coveredElements.size()) + ")</h2>\n");
-            if (allElements.size() == coveredElements.size()) {
-                writer.write("        <p>🎉 All elements are covered!</p>\n");
-            } else {
-                for (String element : allElements) {
-                    if (!coveredElements.contains(element)) {
-                        writer.write("        <div class='uncovered'>✗ " + escapeHtml(element) + "</div>\n");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String HEAD = """
+            <!DOCTYPE html>
+            <html lang='en'>
+            <head>
+                <meta charset='UTF-8'>
+                <title>UI Coverage Report</title>
+                <style>
+                    body { font-family: Arial, sans-serif; margin: 20px; line-height: 1.6; }
+                    .summary { background: #f5f5f5; padding: 20px; border-radius: 8px; margin-bottom: 20px; }
+                    .coverage-bar { background: #e0e0e0; height: 25px; border-radius: 12px; margin: 15px 0; overflow: hidden; }
+                    .coverage-fill { background: #4CAF50; height: 100%; transition: width 0.5s; }
+                    .stats { display: flex; gap: 20px; margin: 10px 0; }
+                    .stat-box { padding: 10px; background: white; border-radius: 5px; flex: 1; text-align: center; }
+                    .controls { display: flex; gap: 10px; align-items: center; margin: 10px 0; flex-wrap: wrap; }
+                    .controls input { flex: 1; min-width: 200px; padding: 6px; }
+                    .controls select { padding: 6px; max-width: 260px; }
+                    .pages { border-collapse: collapse; width: 100%; margin-bottom: 20px; }
+                    .pages th, .pages td { text-align: left; padding: 4px 8px; border-bottom: 1px solid #eee; }
+                    .pages tr.page-row { cursor: pointer; }
+                    .pages tr.page-row:hover { background: #f5f5f5; }
+                    #viewport { height: 600px; overflow-y: auto; position: relative; border: 1px solid #eee; }
+                    #rows { position: absolute; top: 0; left: 0; right: 0; }
+                    .row { height: 28px; line-height: 28px; padding: 0 8px; white-space: nowrap; overflow: hidden; text-overflow: ellipsis; box-sizing: border-box; }
+                    .row .meta { color: #999; font-size: 12px; margin-left: 10px; }
+                    .covered { color: #4CAF50; background: #f8fff8; border-left: 3px solid #4CAF50; }
+                    .uncovered { color: #f44336; background: #fff8f8; border-left: 3px solid #f44336; }
+                    .hits { color: #333; font-size: 12px; padding: 1px 6px; border-radius: 8px; margin-left: 8px; }
+                    .heatmap td.heat { text-align: right; font-variant-numeric: tabular-nums; }
+                </style>
+            </head>
+            <body>
+            """;
+
+    /**
+     * Виртуализированный список: в DOM только строки, попадающие в окно прокрутки,
+     * фильтры и поиск работают по колонкам из файла данных
+     */
+    private static final String APP_SCRIPT = """
+            <script>
+            (() => {
+              const data = window.UI_COVERAGE_DATA;
+              const viewport = document.getElementById('viewport');
+              if (!data) {
+                viewport.textContent = 'Coverage data file was not found next to the report';
+                return;
+              }
+              const ROW_HEIGHT = 28;
+              const total = data.ids.length;
+              const rows = document.getElementById('rows');
+              const spacer = document.getElementById('spacer');
+              const search = document.getElementById('search');
+              const pageFilter = document.getElementById('pageFilter');
+              const typeFilter = document.getElementById('typeFilter');
+              const statusFilter = document.getElementById('statusFilter');
+              const counter = document.getElementById('count');
+              const orderSelect = document.getElementById('order');
+              let lowerIds = null;
+              let view = new Uint32Array(0);
+
+              const fillSelect = (select, values) => values.forEach((value, index) => {
+                const option = document.createElement('option');
+                option.value = String(index);
+                option.textContent = value;
+                select.appendChild(option);
+              });
+              fillSelect(pageFilter, data.pages);
+              fillSelect(typeFilter, data.types);
+
+              // Группировка по страницам за один проход
+              const pageTotals = data.pages.map(() => [0, 0]);
+              for (let i = 0; i < total; i++) {
+                const totals = pageTotals[data.page[i]];
+                totals[0]++;
+                if (data.covered.charCodeAt(i) === 49) totals[1]++;
+              }
+              const pagesBody = document.getElementById('pagesBody');
+              pageTotals
+                .map((totals, index) => ({ index, total: totals[0], covered: totals[1] }))
+                .sort((a, b) => a.covered / a.total - b.covered / b.total)
+                .forEach(entry => {
+                  const tr = document.createElement('tr');
+                  tr.className = 'page-row';
+                  const percent = (entry.covered / entry.total * 100).toFixed(1);
+                  [data.pages[entry.index], entry.total, entry.covered, percent + '%'].forEach(value => {
+                    const td = document.createElement('td');
+                    td.textContent = value;
+                    tr.appendChild(td);
+                  });
+                  tr.addEventListener('click', () => { pageFilter.value = String(entry.index); applyFilters(); });
+                  pagesBody.appendChild(tr);
+                });
+
+              // Счетчики действий: [строка, по одному числу на вид действия] только для затронутых элементов
+              const hitTotals = new Float64Array(total);
+              const hitRows = new Map();
+              let maxHits = 0;
+              for (const entry of data.hits) {
+                const counts = entry.slice(1);
+                const sum = counts.reduce((a, b) => a + b, 0);
+                hitRows.set(entry[0], counts);
+                hitTotals[entry[0]] = sum;
+                if (sum > maxHits) maxHits = sum;
+              }
+              // Логарифмическая шкала: один элемент с сотнями кликов не гасит остальные
+              const heat = (value, max) => value === 0 ? 'transparent'
+                : 'rgba(255, 87, 34, ' + (0.15 + 0.85 * Math.log(1 + value) / Math.log(1 + max)).toFixed(2) + ')';
+
+              const hotspotsBody = document.getElementById('hotspotsBody');
+              Array.from(hitRows.keys())
+                .sort((a, b) => hitTotals[b] - hitTotals[a])
+                .slice(0, 25)
+                .forEach(row => {
+                  const counts = hitRows.get(row);
+                  const repeats = hitTotals[row] - counts.filter(count => count > 0).length;
+                  const tr = document.createElement('tr');
+                  const cells = [data.ids[row], data.pages[data.page[row]]]
+                    .concat(counts, [repeats, hitTotals[row]]);
+                  cells.forEach((value, index) => {
+                    const td = document.createElement('td');
+                    td.textContent = value;
+                    if (index >= 2) {
+                      td.className = 'heat';
+                      td.style.background = heat(value, maxHits);
                     }
+                    tr.appendChild(td);
+                  });
+                  hotspotsBody.appendChild(tr);
+                });
+              if (hitRows.size === 0) {
+                document.getElementById('hotspots').textContent = 'No actions recorded';
+              }
+
+              const applyFilters = () => {
+                const query = search.value.trim().toLowerCase();
+                if (query && !lowerIds) lowerIds = data.ids.map(id => id.toLowerCase());
+                const pageIndex = pageFilter.value === '' ? -1 : Number(pageFilter.value);
+                const typeIndex = typeFilter.value === '' ? -1 : Number(typeFilter.value);
+                const status = statusFilter.value;
+                const matches = new Uint32Array(total);
+                let count = 0;
+                for (let i = 0; i < total; i++) {
+                  if (pageIndex >= 0 && data.page[i] !== pageIndex) continue;
+                  if (typeIndex >= 0 && data.type[i] !== typeIndex) continue;
+                  if (status !== '' && data.covered[i] !== status) continue;
+                  if (query && !lowerIds[i].includes(query)) continue;
+                  matches[count++] = i;
                 }
+                view = matches.subarray(0, count);
+                if (orderSelect.value === 'hits') view.sort((a, b) => hitTotals[b] - hitTotals[a]);
+                counter.textContent = count + ' of ' + total + ' elements';
+                spacer.style.height = (count * ROW_HEIGHT) + 'px';
+                viewport.scrollTop = 0;
+                render();
+              };
+
+              const render = () => {
+                const first = Math.floor(viewport.scrollTop / ROW_HEIGHT);
+                const visible = Math.ceil(viewport.clientHeight / ROW_HEIGHT) + 10;
+                const last = Math.min(view.length, first + visible);
+                const fragment = document.createDocumentFragment();
+                for (let position = first; position < last; position++) {
+                  const i = view[position];
+                  const covered = data.covered[i] === '1';
+                  const row = document.createElement('div');
+                  row.className = 'row ' + (covered ? 'covered' : 'uncovered');
+                  row.textContent = (covered ? '✓ ' : '✗ ') + data.ids[i];
+                  const meta = document.createElement('span');
+                  meta.className = 'meta';
+                  meta.textContent = data.types[data.type[i]] + ' · ' + data.pages[data.page[i]];
+                  row.appendChild(meta);
+                  if (hitTotals[i] > 0) {
+                    const badge = document.createElement('span');
+                    badge.className = 'hits';
+                    badge.textContent = '×' + hitTotals[i];
+                    badge.style.background = heat(hitTotals[i], maxHits);
+                    badge.title = data.actions.map((action, k) => action + ': ' + hitRows.get(i)[k]).join(', ');
+                    row.appendChild(badge);
+                  }
+                  fragment.appendChild(row);
+                }
+                rows.style.transform = 'translateY(' + (first * ROW_HEIGHT) + 'px)';
+                rows.replaceChildren(fragment);
+              };
+
+              let searchTimer;
+              search.addEventListener('input', () => {
+                clearTimeout(searchTimer);
+                searchTimer = setTimeout(applyFilters, 150);
+              });
+              [pageFilter, typeFilter, statusFilter, orderSelect].forEach(select => select.addEventListener('change', applyFilters));
+              viewport.addEventListener('scroll', () => requestAnimationFrame(render));
+              applyFilters();
+            })();
+            </script>
+            """;
+
+    private static final String FOOTER = """
+                <footer style='margin-top: 40px; padding: 20px; text-align: center; color: #666;'>
+                    Generated by UI Coverage Tracker
+                </footer>
+            </body>
+            </html>
+            """;
+
+    private static final String UNKNOWN = "unknown";
+
+    /**
+     * Дополнительный раздел отчета (например, профиль задержек), пишется перед списком элементов
+     */
+    @FunctionalInterface
+    public interface ReportSection {
+        void write(Writer writer) throws IOException;
+    }
+
+    /**
+     * Необязательные данные отчета: сведения об элементах, счетчики действий и дополнительные разделы
+     */
+    public static final class ReportOptions {
+        private Function<String, UICoverageTracker.ElementInfo> elementInfo = elementId -> null;
+        private Function<String, long[]> hits = elementId -> null;
+        private List<ReportSection> sections = List.of();
+
+        // Страница и тип элемента для группировки и фильтров
+        public ReportOptions elementInfo(Function<String, UICoverageTracker.ElementInfo> elementInfo) {
+            this.elementInfo = elementInfo;
+            return this;
+        }
+
+        // Счетчики действий (индекс - ActionKind.ordinal) для тепловой карты
+        public ReportOptions hits(Function<String, long[]> hits) {
+            this.hits = hits;
+            return this;
+        }
+
+        public ReportOptions sections(List<ReportSection> sections) {
+            this.sections = List.copyOf(sections);
+            return this;
+        }
+    }
+
+    public static void generateHTMLReport(Set<String> allElements, Set<String> coveredElements, String filePath) {
+        generateHTMLReport(allElements, coveredElements, new ReportOptions(), filePath);
+    }
+
+    /**
+     * Пишет HTML отчет и рядом файл данных (*.data.js) с колонками элементов.
+     * Сам HTML не зависит от размера инвентаря, поэтому открывается сразу.
+     * Для пути .gz сжимается только HTML: файл данных остается несжатым, чтобы распакованный
+     * отчет открывался из файловой системы
+     */
+    public static void generateHTMLReport(Set<String> allElements, Set<String> coveredElements,
+                                          ReportOptions options, String filePath) {
+        boolean gzip = filePath.endsWith(".gz");
+        Path target = Paths.get(filePath);
+        Path dataTarget = target.resolveSibling(dataFileName(target.getFileName().toString()));
+        Path dataTemp = null;
+        Path temp = null;
+        try {
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+
+            // У каждого форка свои временные файлы: одновременные записи не перемешиваются
+            dataTemp = Files.createTempFile(directory, dataTarget.getFileName().toString(), ".tmp");
+            try (Writer writer = openWriter(dataTemp, false)) {
+                writeData(writer, allElements, coveredElements, options.elementInfo, options.hits);
             }
-            writer.write("    </div>\n");
 
-            writer.write("    <footer style='margin-top: 40px; padding: 20px; text-align: center; color: #666;'>\n");
-            writer.write("        Generated by UI Coverage Tracker\n");
-            writer.write("    </footer>\n");
-            writer.write("</body>\n");
-            writer.write("</html>\n");
+            temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            try (Writer writer = openWriter(temp, gzip)) {
+                writeReport(writer, allElements, coveredElements, options.hits, options.sections,
+                        dataTarget.getFileName().toString());
+            }
+
+            // Отчет появляется целиком: сначала данные, потом HTML, который на них ссылается
+            moveIntoPlace(dataTemp, dataTarget);
+            moveIntoPlace(temp, target);
 
             System.out.println("📄 HTML report generated: " + filePath);
 
         } catch (IOException e) {
             System.err.println("❌ Error generating HTML report: " + e.getMessage());
+        } finally {
+            deleteQuietly(dataTemp);
+            deleteQuietly(temp);
+        }
+    }
+
+    static Writer openWriter(Path path, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    // ui-coverage-report.html и ui-coverage-report.html.gz -> ui-coverage-report.data.js
+    static String dataFileName(String reportFileName) {
+        String base = reportFileName.endsWith(".gz")
+                ? reportFileName.substring(0, reportFileName.length() - 3) : reportFileName;
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) {
+            base = base.substring(0, dot);
+        }
+        return base + ".data.js";
+    }
+
+    static void writeReport(Writer writer, Set<String> allElements, Set<String> coveredElements,
+                            Function<String, long[]> hits, List<ReportSection> sections, String dataFile)
+            throws IOException {
+        // Покрытые элементы, которых нет в инвентаре, тоже попадают в отчет
+        int total = allElements.size() + countMissing(coveredElements, allElements);
+        int covered = coveredElements.size();
+        double coveragePercent = total == 0 ? 0 : (double) covered / total * 100;
+        long actions = 0;
+        for (String element : coveredElements) {
+            long[] counts = hits.apply(element);
+            if (counts != null) {
+                for (long count : counts) actions += count;
+            }
+        }
+
+        writer.write(HEAD);
+
+        // Заголовок и суммарная статистика считаются в Java, чтобы были видны сразу
+        writer.write("    <h1>🎯 UI Coverage Report</h1>\n");
+        writer.write("    <div class='summary'>\n");
+        writer.write("        <h2>📊 Summary</h2>\n");
+        writer.write("        <div class='stats'>\n");
+        writer.write("            <div class='stat-box'><h3>" + total + "</h3><p>Total Elements</p></div>\n");
+        writer.write("            <div class='stat-box'><h3 style='color: #4CAF50'>" + covered + "</h3><p>Covered Elements</p></div>\n");
+        writer.write("            <div class='stat-box'><h3 style='color: #f44336'>" + (total - covered) + "</h3><p>Uncovered Elements</p></div>\n");
+        writer.write("            <div class='stat-box'><h3>" + String.format("%.1f", coveragePercent) + "%</h3><p>Coverage</p></div>\n");
+        writer.write("            <div class='stat-box'><h3>" + actions + "</h3><p>Actions</p></div>\n");
+        writer.write("        </div>\n");
+        writer.write("        <div class='coverage-bar'>\n");
+        writer.write("            <div class='coverage-fill' style='width: " + coveragePercent + "%'></div>\n");
+        writer.write("        </div>\n");
+        writer.write("    </div>\n");
+
+        // Покрытие по страницам (заполняется скриптом из файла данных)
+        writer.write("    <h2>🗂️ Pages</h2>\n");
+        writer.write("    <table class='pages'><thead><tr><th>Page</th><th>Elements</th><th>Covered</th><th>Coverage</th></tr></thead>"
+                + "<tbody id='pagesBody'></tbody></table>\n");
+
+        // Тепловая карта: самые нагруженные элементы и повторные действия над ними
+        writer.write("    <h2>🔥 Hotspots</h2>\n");
+        writer.write("    <div id='hotspots'><table class='pages heatmap'><thead><tr><th>Element</th><th>Page</th>");
+        for (ActionKind kind : ActionKind.values()) {
+            writer.write("<th>" + kind.label() + "</th>");
+        }
+        writer.write("<th>Repeats</th><th>Total</th></tr></thead><tbody id='hotspotsBody'></tbody></table></div>\n");
+
+        for (ReportSection section : sections) {
+            section.write(writer);
+        }
+
+        // Поиск, фильтры и виртуализированный список элементов
+        writer.write("    <h2>🔎 Elements</h2>\n");
+        writer.write("    <div class='controls'>\n");
+        writer.write("        <input id='search' type='search' placeholder='Search elements...'>\n");
+        writer.write("        <select id='pageFilter'><option value=''>All pages</option></select>\n");
+        writer.write("        <select id='typeFilter'><option value=''>All types</option></select>\n");
+        writer.write("        <select id='statusFilter'><option value=''>All statuses</option>"
+                + "<option value='1'>✅ Covered</option><option value='0'>❌ Uncovered</option></select>\n");
+        writer.write("        <select id='order'><option value='inventory'>Inventory order</option>"
+                + "<option value='hits'>Most actions first</option></select>\n");
+        writer.write("        <span id='count'></span>\n");
+        writer.write("    </div>\n");
+        writer.write("    <div id='viewport'><div id='spacer'></div><div id='rows'></div></div>\n");
+
+        writer.write("    <script src='");
+        escapeHtml(writer, dataFile);
+        writer.write("'></script>\n");
+        writer.write(APP_SCRIPT);
+        writer.write(FOOTER);
+    }
+
+    /**
+     * Колоночный формат: ids, индексы страницы и типа в словарях, строка флагов покрытия,
+     * разреженный список счетчиков действий [строка, счетчики...].
+     * Каждая колонка пишется отдельным проходом по множествам, словари страниц и типов
+     * малы, поэтому дополнительная память не зависит от числа элементов
+     */
+    static void writeData(Writer writer, Set<String> allElements, Set<String> coveredElements,
+                          Function<String, UICoverageTracker.ElementInfo> elementInfo,
+                          Function<String, long[]> hits) throws IOException {
+        Map<String, Integer> pages = new LinkedHashMap<>();
+        Map<String, Integer> types = new LinkedHashMap<>();
+
+        writer.write("window.UI_COVERAGE_DATA = {\n\"ids\": [");
+        forEachElement(allElements, coveredElements, new ColumnWriter(writer) {
+            @Override
+            void value(String element) throws IOException {
+                writeJsonString(writer, element);
+            }
+        });
+
+        writer.write("],\n\"page\": [");
+        forEachElement(allElements, coveredElements, new ColumnWriter(writer) {
+            @Override
+            void value(String element) throws IOException {
+                UICoverageTracker.ElementInfo info = elementInfo.apply(element);
+                String page = info == null || info.page() == null ? UNKNOWN : info.page();
+                writer.write(Integer.toString(pages.computeIfAbsent(page, key -> pages.size())));
+            }
+        });
+
+        writer.write("],\n\"type\": [");
+        forEachElement(allElements, coveredElements, new ColumnWriter(writer) {
+            @Override
+            void value(String element) throws IOException {
+                UICoverageTracker.ElementInfo info = elementInfo.apply(element);
+                String type = info == null || info.type() == null ? UNKNOWN : info.type();
+                writer.write(Integer.toString(types.computeIfAbsent(type, key -> types.size())));
+            }
+        });
+
+        writer.write("],\n\"covered\": \"");
+        for (String element : allElements) {
+            writer.write(coveredElements.contains(element) ? '1' : '0');
+        }
+        for (String element : coveredElements) {
+            if (!allElements.contains(element)) writer.write('1');
+        }
+
+        writer.write("\",\n\"hits\": [");
+        forEachElement(allElements, coveredElements, new ElementVisitor() {
+            private boolean first = true;
+
+            @Override
+            public void visit(String element, int row) throws IOException {
+                long[] counts = coveredElements.contains(element) ? hits.apply(element) : null;
+                if (counts == null) {
+                    return;
+                }
+                if (!first) writer.write(',');
+                first = false;
+                writer.write('[');
+                writer.write(Integer.toString(row));
+                for (long count : counts) {
+                    writer.write(',');
+                    writer.write(Long.toString(count));
+                }
+                writer.write(']');
+            }
+        });
+
+        writer.write("],\n\"actions\": [");
+        boolean firstAction = true;
+        for (ActionKind kind : ActionKind.values()) {
+            if (!firstAction) writer.write(',');
+            firstAction = false;
+            writeJsonString(writer, kind.label());
+        }
+
+        writer.write("],\n\"pages\": [");
+        writeJsonStrings(writer, pages.keySet());
+        writer.write("],\n\"types\": [");
+        writeJsonStrings(writer, types.keySet());
+        writer.write("]\n};\n");
+    }
+
+    // Обработчик элемента с номером его строки в колонках
+    private interface ElementVisitor {
+        void visit(String element, int row) throws IOException;
+    }
+
+    /**
+     * Запись значений колонки через запятую
+     */
+    private abstract static class ColumnWriter implements ElementVisitor {
+        private final Writer writer;
+        private boolean first = true;
+
+        ColumnWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void visit(String element, int row) throws IOException {
+            if (!first) writer.write(',');
+            first = false;
+            value(element);
+        }
+
+        abstract void value(String element) throws IOException;
+    }
+
+    // Порядок обхода одинаков во всех колонках: сначала инвентарь, затем покрытые вне инвентаря
+    private static void forEachElement(Set<String> allElements, Set<String> coveredElements, ElementVisitor visitor)
+            throws IOException {
+        int row = 0;
+        for (String element : allElements) {
+            visitor.visit(element, row++);
+        }
+        for (String element : coveredElements) {
+            if (!allElements.contains(element)) visitor.visit(element, row++);
+        }
+    }
+
+    private static int countMissing(Set<String> elements, Set<String> inventory) {
+        int missing = 0;
+        for (String element : elements) {
+            if (!inventory.contains(element)) missing++;
+        }
+        return missing;
+    }
+
+    private static void writeJsonStrings(Writer writer, Iterable<String> values) throws IOException {
+        boolean first = true;
+        for (String value : values) {
+            if (!first) writer.write(',');
+            first = false;
+            writeJsonString(writer, value);
+        }
+    }
+
+    /**
+     * Строка JSON (и JS) без промежуточных копий: экранируем кавычки, обратный слеш,
+     * управляющие символы и U+2028/U+2029, которые ломают JS-литералы
+     */
+    static void writeJsonString(Writer writer, String text) throws IOException {
+        writer.write('"');
+        int length = text.length();
+        int plainFrom = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != 0x2028 && c != 0x2029) {
+                continue;
+            }
+            writer.write(text, plainFrom, i - plainFrom);
+            switch (c) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default: writer.write(String.format("\\u%04x", (int) c));
+            }
+            plainFrom = i + 1;
+        }
+        writer.write(text, plainFrom, length - plainFrom);
+        writer.write('"');
+    }
+
+    // Временный файл остается только после ошибки; после переноса его уже нет
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // Уборка не должна скрывать ошибку записи отчета
         }
     }
 
-    private static String escapeHtml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Экранирование сразу в поток, без промежуточных строк на каждый элемент
+     */
+    static void escapeHtml(Writer writer, String text) throws IOException {
+        if (text == null) return;
+        int length = text.length();
+        int plainFrom = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement;
+            switch (text.charAt(i)) {
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                case '\'': replacement = "&#39;"; break;
+                default: continue;
+            }
+            // Неэкранируемые участки пишем целиком, write(String, off, len) не создает подстрок
+            writer.write(text, plainFrom, i - plainFrom);
+            writer.write(replacement);
+            plainFrom = i + 1;
+        }
+        writer.write(text, plainFrom, length - plainFrom);
     }
-}
\ No newline at end of file
+}
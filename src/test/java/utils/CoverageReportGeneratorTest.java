@@ -0,0 +1,86 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка потоковой генерации HTML отчета
+ */
+public class CoverageReportGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEscapeWritesEntitiesWithoutTouchingPlainText() throws Exception {
+        StringWriter out = new StringWriter();
+        CoverageReportGenerator.escapeHtml(out, "a<b>&\"c'd");
+        assertEquals("a&lt;b&gt;&amp;&quot;c&#39;d", out.toString());
+    }
+
+    @Test
+    void testJsonStringEscapesQuotesControlsAndLineSeparators() throws Exception {
+        StringWriter out = new StringWriter();
+        CoverageReportGenerator.writeJsonString(out, "a\"b\\c\nd\u2028e");
+        assertEquals("\"a\\\"b\\\\c\\nd\\u2028e\"", out.toString());
+    }
+
+    @Test
+    void testDataFileNameFollowsReportName() {
+        assertEquals("report.data.js", CoverageReportGenerator.dataFileName("report.html"));
+        assertEquals("report.data.js", CoverageReportGenerator.dataFileName("report.html.gz"));
+    }
+
+    @Test
+    void testGzipReportWritesSummaryAndDataColumns() throws Exception {
+        Set<String> all = new LinkedHashSet<>(List.of("id:userName", "id:submit", "BUTTON:text#<x>"));
+        Set<String> covered = Set.of("id:submit", "id:extra");
+        Map<String, UICoverageTracker.ElementInfo> info = Map.of(
+                "id:userName", new UICoverageTracker.ElementInfo("Text Box", "input"),
+                "id:submit", new UICoverageTracker.ElementInfo("Text Box", "button"));
+        Path report = tempDir.resolve("report.html.gz");
+
+        Map<String, long[]> hits = Map.of("id:submit", new long[]{3, 0, 0, 0, 1});
+        CoverageReportGenerator.generateHTMLReport(all, covered,
+                new CoverageReportGenerator.ReportOptions().elementInfo(info::get).hits(hits::get), report.toString());
+
+        String html = gunzip(report);
+        assertTrue(html.contains("<h3>4</h3><p>Total Elements</p>"));
+        assertTrue(html.contains("<script src='report.data.js'></script>"));
+        assertTrue(html.contains("<h3>4</h3><p>Actions</p>"));
+
+        // Данные не сжимаются: распакованный отчет находит их по имени из <script src>
+        String data = Files.readString(tempDir.resolve("report.data.js"));
+        assertTrue(data.contains("\"ids\": [\"id:userName\",\"id:submit\",\"BUTTON:text#<x>\",\"id:extra\"]"));
+        assertTrue(data.contains("\"page\": [0,0,1,1]"));
+        assertTrue(data.contains("\"type\": [0,1,2,2]"));
+        assertTrue(data.contains("\"covered\": \"0101\""));
+        assertTrue(data.contains("\"hits\": [[1,3,0,0,0,1]]"));
+        assertTrue(data.contains("\"actions\": [\"click\",\"dblclick\",\"rightclick\",\"fill\",\"visible\"]"));
+        assertTrue(data.contains("\"pages\": [\"Text Box\",\"unknown\"]"));
+        assertTrue(data.contains("\"types\": [\"input\",\"button\",\"unknown\"]"));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of("report.data.js", "report.html.gz"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    private static String gunzip(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
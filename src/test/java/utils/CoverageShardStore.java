@@ -0,0 +1,256 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Хранилище шардов покрытия для запуска в нескольких форках Surefire.
+ * Каждый форк пишет свой компактный бинарный файл (target/ui-coverage/fork-N.bin),
+ * а шаг слияния объединяет шарды текущего запуска в один отчет.
+ */
+public class CoverageShardStore {
+
+    public static final String DEFAULT_DIR = "target/ui-coverage";
+
+    private static final int MAGIC = 0x55494356; // "UICV"
+    // Версия 2 добавляет страницу и тип элемента, версия 3 - счетчики действий
+    private static final int VERSION = 3;
+    private static final String REPORT_LOCK = "report.lock";
+
+    private final Path directory;
+
+    public CoverageShardStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public static CoverageShardStore defaultStore() {
+        return new CoverageShardStore(Paths.get(System.getProperty("ui.coverage.dir", DEFAULT_DIR)));
+    }
+
+    // Номер форка передает Surefire через ${surefire.forkNumber}
+    public static String currentForkId() {
+        return System.getProperty("ui.coverage.fork", "local");
+    }
+
+    // Идентификатор сборки, чтобы не смешивать шарды от предыдущих запусков
+    public static String currentRunId() {
+        return System.getProperty("ui.coverage.run", "local");
+    }
+
+    /**
+     * Результат слияния шардов
+     */
+    public static class MergedCoverage {
+        private final Set<String> allElements = new HashSet<>();
+        private final Set<String> coveredElements = new HashSet<>();
+        private final Map<String, UICoverageTracker.ElementInfo> elementInfo = new HashMap<>();
+        private final Map<String, long[]> hits = new HashMap<>();
+        private int shardCount;
+
+        public Set<String> getAllElements() {
+            return allElements;
+        }
+
+        public Set<String> getCoveredElements() {
+            return coveredElements;
+        }
+
+        public UICoverageTracker.ElementInfo getElementInfo(String elementId) {
+            return elementInfo.get(elementId);
+        }
+
+        // Сумма обращений по всем форкам (индекс - ActionKind.ordinal) или null
+        public long[] getHits(String elementId) {
+            return hits.get(elementId);
+        }
+
+        public int getShardCount() {
+            return shardCount;
+        }
+    }
+
+    /**
+     * Записывает шард текущего форка. Файл сначала пишется во временный,
+     * а затем атомарно переименовывается, чтобы слияние не увидело его наполовину.
+     * Если сведений об элементе или счетчиков нет, функции возвращают null
+     */
+    public Path writeShard(String forkId, String runId, Collection<String> allElements, Collection<String> coveredElements,
+                           Function<String, UICoverageTracker.ElementInfo> elementInfo,
+                           Function<String, long[]> hits) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve("fork-" + forkId + ".bin");
+        Path temp = directory.resolve("fork-" + forkId + ".bin.tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(runId);
+            writeStrings(out, allElements);
+            writeStrings(out, coveredElements);
+            writeInfo(out, allElements, elementInfo);
+            writeHits(out, coveredElements, hits);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    /**
+     * Канал файла блокировки отчета. Форки берут на нем lock() на время записи шарда,
+     * слияния и записи отчета, чтобы отчет и его данные не оказались от разных форков
+     * и более старое слияние не перезаписало более новое. Блокировка снимается при закрытии канала
+     */
+    public FileChannel openReportLock() throws IOException {
+        Files.createDirectories(directory);
+        return FileChannel.open(directory.resolve(REPORT_LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Объединяет все шарды указанного запуска. Шарды других запусков пропускаются,
+     * при runId == null объединяются все найденные шарды
+     */
+    public MergedCoverage merge(String runId) throws IOException {
+        MergedCoverage merged = new MergedCoverage();
+        if (!Files.isDirectory(directory)) {
+            return merged;
+        }
+
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory, "fork-*.bin")) {
+            for (Path shard : shards) {
+                if (readShard(shard, runId, merged)) {
+                    merged.shardCount++;
+                }
+            }
+        }
+        return merged;
+    }
+
+    private boolean readShard(Path shard, String runId, MergedCoverage merged) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(shard)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                System.err.println("⚠️ Skipping unknown shard format: " + shard);
+                return false;
+            }
+            String shardRunId = in.readUTF();
+            if (runId != null && !runId.equals(shardRunId)) {
+                return false;
+            }
+            readStrings(in, merged.allElements);
+            readStrings(in, merged.coveredElements);
+            readInfo(in, merged.elementInfo);
+            readHits(in, merged.hits);
+            return true;
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        // Представления трекера живые: фиксируем ссылки, чтобы счетчик совпал с числом строк
+        Object[] snapshot = values.toArray();
+        out.writeInt(snapshot.length);
+        for (Object value : snapshot) {
+            out.writeUTF((String) value);
+        }
+    }
+
+    // Пустая строка означает отсутствие значения: writeUTF не принимает null
+    private static void writeInfo(DataOutputStream out, Collection<String> elements,
+                                  Function<String, UICoverageTracker.ElementInfo> elementInfo) throws IOException {
+        Map<String, UICoverageTracker.ElementInfo> known = new HashMap<>();
+        for (String element : elements) {
+            UICoverageTracker.ElementInfo info = elementInfo.apply(element);
+            if (info != null) known.put(element, info);
+        }
+        out.writeInt(known.size());
+        for (Map.Entry<String, UICoverageTracker.ElementInfo> entry : known.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue().page() == null ? "" : entry.getValue().page());
+            out.writeUTF(entry.getValue().type() == null ? "" : entry.getValue().type());
+        }
+    }
+
+    private static void readInfo(DataInputStream in, Map<String, UICoverageTracker.ElementInfo> target) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String element = in.readUTF();
+            String page = in.readUTF();
+            String type = in.readUTF();
+            target.putIfAbsent(element, new UICoverageTracker.ElementInfo(page.isEmpty() ? null : page, type.isEmpty() ? null : type));
+        }
+    }
+
+    // Счетчики пишутся только для покрытых элементов: непокрытых действия не касались
+    private static void writeHits(DataOutputStream out, Collection<String> elements,
+                                  Function<String, long[]> hits) throws IOException {
+        Map<String, long[]> known = new HashMap<>();
+        for (String element : elements) {
+            long[] counts = hits.apply(element);
+            if (counts != null) known.put(element, counts);
+        }
+        out.writeInt(known.size());
+        for (Map.Entry<String, long[]> entry : known.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeByte(entry.getValue().length);
+            for (long count : entry.getValue()) {
+                out.writeLong(count);
+            }
+        }
+    }
+
+    private static void readHits(DataInputStream in, Map<String, long[]> target) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String element = in.readUTF();
+            int kinds = in.readUnsignedByte();
+            long[] sum = target.computeIfAbsent(element, key -> new long[ActionKind.values().length]);
+            for (int kind = 0; kind < kinds; kind++) {
+                long value = in.readLong();
+                if (kind < sum.length) sum[kind] += value;
+            }
+        }
+    }
+
+    private static void readStrings(DataInputStream in, Set<String> target) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            target.add(in.readUTF());
+        }
+    }
+
+    /**
+     * Отдельный шаг слияния: java utils.CoverageShardStore [dir] [runId] [report]
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : DEFAULT_DIR);
+        String runId = args.length > 1 ? args[1] : null;
+        String report = args.length > 2 ? args[2] : "target/ui-coverage-report.html";
+
+        MergedCoverage merged = new CoverageShardStore(dir).merge(runId);
+        System.out.println("🔗 Merged " + merged.getShardCount() + " coverage shards from " + dir);
+        CoverageReportGenerator.generateHTMLReport(merged.getAllElements(), merged.getCoveredElements(),
+                new CoverageReportGenerator.ReportOptions().elementInfo(merged::getElementInfo).hits(merged::getHits), report);
+    }
+}
@@ -0,0 +1,59 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка записи и слияния шардов покрытия от разных форков
+ */
+public class CoverageShardStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testMergeCombinesShardsOfSameRun() throws Exception {
+        CoverageShardStore store = new CoverageShardStore(tempDir);
+        store.writeShard("1", "run-a", List.of("id:a", "id:b"), List.of("id:a"), id -> null, id -> null);
+        store.writeShard("2", "run-a", List.of("id:b", "id:c"), List.of("id:c"), id -> null, id -> null);
+        // Шард от прошлого запуска не должен попасть в отчет
+        store.writeShard("3", "run-old", List.of("id:stale"), List.of("id:stale"), id -> null, id -> null);
+
+        CoverageShardStore.MergedCoverage merged = store.merge("run-a");
+
+        assertEquals(2, merged.getShardCount());
+        assertEquals(3, merged.getAllElements().size());
+        assertTrue(merged.getCoveredElements().containsAll(List.of("id:a", "id:c")));
+        assertFalse(merged.getAllElements().contains("id:stale"));
+    }
+
+    @Test
+    void testRewritingShardReplacesPreviousContent() throws Exception {
+        CoverageShardStore store = new CoverageShardStore(tempDir);
+        store.writeShard("1", "run-a", List.of("id:a"), List.of(), id -> null, id -> null);
+        store.writeShard("1", "run-a", List.of("id:a", "id:b"), List.of("id:b"), id -> null, id -> null);
+
+        CoverageShardStore.MergedCoverage merged = store.merge(null);
+
+        assertEquals(1, merged.getShardCount());
+        assertEquals(2, merged.getAllElements().size());
+        assertEquals(1, merged.getCoveredElements().size());
+    }
+
+    @Test
+    void testMergeSumsActionHitsAcrossForks() throws Exception {
+        CoverageShardStore store = new CoverageShardStore(tempDir);
+        store.writeShard("1", "run-a", List.of("id:a"), List.of("id:a"), id -> null, id -> new long[]{2, 0, 0, 1, 0});
+        store.writeShard("2", "run-a", List.of("id:a"), List.of("id:a"), id -> null, id -> new long[]{3, 1, 0, 0, 0});
+
+        CoverageShardStore.MergedCoverage merged = store.merge("run-a");
+
+        assertArrayEquals(new long[]{5, 1, 0, 1, 0}, merged.getHits("id:a"));
+        assertNull(merged.getHits("id:b"));
+    }
+}
@@ -1,102 +1,211 @@
 package utils;
 
+import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Утилита для извлечения информации о DOM-элементах
  */
 public class DOMElementExtractor {
 
+    static final String BATCH_BINDING = "__uiCoverageBatch";
+
     private Page page;
-    private UICoverageTracker coverageTracker;
+    // Движок сбора: какие элементы считаются интерактивными (см. ElementHarvester)
+    private final ElementHarvester harvester;
+    // События покрытия уходят в трекер через фоновый поток (см. CoverageEventBus)
+    private final CoverageEventBus events;
+
+    // Текущий набор элементов страницы в инкрементальном режиме
+    private final Set<String> liveInventory = ConcurrentHashMap.newKeySet();
+    private boolean incremental;
+    // Имя страницы, к которой относятся собранные элементы (для группировки в отчете)
+    private volatile String pageName;
+    // Тест, который сейчас работает со страницей (для карты тест -> элементы)
+    private volatile String testId;
 
     public DOMElementExtractor(Page page) {
+        this(page, ElementHarvester.fromSystemProperties());
+    }
+
+    public DOMElementExtractor(Page page, ElementHarvester harvester) {
         this.page = page;
-        this.coverageTracker = UICoverageTracker.getInstance();
+        this.harvester = harvester;
+        this.events = CoverageEventBus.getInstance();
+    }
+
+    public void setPageName(String pageName) {
+        this.pageName = pageName;
+    }
+
+    public void setTestId(String testId) {
+        this.testId = testId;
+    }
+
+    private void register(HarvestedElement element) {
+        events.elementFound(element.fingerprint(), pageName, element.type());
     }
 
     /**
-     * Собирает все интерактивные элементы со страницы
+     * Собирает все интерактивные элементы со страницы. Если страница с тем же URL и той же
+     * структурой DOM уже собиралась, инвентарь берется из кэша (-Dui.coverage.cache=false выключает)
      */
-    public void collectAllInteractiveElements() {
+    public List<HarvestedElement> collectAllInteractiveElements() {
+        List<HarvestedElement> elements = new ArrayList<>();
         try {
-            // JavaScript код, который выполнится в браузере
-            Object result = page.evaluate("() => {\n" +
-                    "const interactiveSelectors = [\n" +
-                    "  'button', 'input', 'select', 'textarea', 'a',\n" +
-                    "  '[role=button]', '[onclick]',\n" +
-                    "  '[data-testid]', '[id]'\n" +
-                    "];\n" +
-                    "\n" +
-                    "let allElements = [];\n" +
-                    "\n" +
-                    "interactiveSelectors.forEach(selector => {\n" +
-                    "  try {\n" +
-                    "    const found = document.querySelectorAll(selector);\n" +
-                    "    found.forEach(element => {\n" +
-                    "      if (element.offsetParent !== null) { // Только видимые элементы\n" +
-                    "        let identifier = '';\n" +
-                    "        \n" +
-                    "        // Сначала пытаемся получить data-testid\n" +
-                    "        if (element.getAttribute('data-testid')) {\n" +
-                    "          identifier = 'data-testid:' + element.getAttribute('data-testid');\n" +
-                    "        } \n" +
-                    "        // Затем ID\n" +
-                    "        else if (element.id && element.id.trim() !== '') {\n" +
-                    "          identifier = 'id:' + element.id;\n" +
-                    "        }\n" +
-                    "        // Затем текст кнопки/ссылки\n" +
-                    "        else if (element.textContent && element.textContent.trim() !== '') {\n" +
-                    "          identifier = element.tagName + ':text=' + element.textContent.trim().substring(0, 30);\n" +
-                    "        }\n" +
-                    "        // Иначе используем селектор\n" +
-                    "        else {\n" +
-                    "          identifier = selector + ':' + Math.random().toString(36).substring(7);\n" +
-                    "        }\n" +
-                    "        \n" +
-                    "        if (identifier && !allElements.includes(identifier)) {\n" +
-                    "          allElements.push(identifier);\n" +
-                    "        }\n" +
-                    "      }\n" +
-                    "    });\n" +
-                    "  } catch (e) {\n" +
-                    "    // Игнорируем ошибки для отдельных селекторов\n" +
-                    "  }\n" +
-                    "});\n" +
-                    "\n" +
-                    "return allElements;\n" +
-                    "}");
-
-            // Преобразуем результат в List<String>
-            if (result instanceof List) {
-                List<?> rawList = (List<?>) result;
-                List<String> elements = new ArrayList<>();
-
-                for (Object item : rawList) {
-                    if (item instanceof String) {
-                        elements.add((String) item);
-                    }
+            String url = InventoryCache.isEnabled()
+                    ? InventoryCache.pageKey(harvester, UrlNormalizer.normalize(page.url())) : null;
+            if (url == null) {
+                // JavaScript код, который выполнится в браузере
+                addRecords(page.evaluate(harvester.harvestScript()), elements);
+                events.log("✓ Collected %s interactive elements", String.valueOf(elements.size()));
+                return elements;
+            }
+
+            InventoryCache cache = InventoryCache.getInstance();
+            Object result = page.evaluate(harvester.cachedHarvestScript(), cache.knownHashes(url));
+            if (result instanceof List<?> answer && answer.size() == 2 && answer.get(0) instanceof String hash) {
+                // Запрос к кэшу на каждом пути: полный сбор всегда считается промахом
+                List<HarvestedElement> cached = cache.get(url, hash);
+                if (cached != null) {
+                    cached.forEach(this::register);
+                    elements.addAll(cached);
+                    events.log("✓ Reused %s cached interactive elements", String.valueOf(elements.size()));
+                    return elements;
                 }
+                // Хеш неизвестен, или запись вытеснили между запросом хешей и ответом браузера
+                addRecords(answer.get(1) == null ? page.evaluate(harvester.harvestScript()) : answer.get(1), elements);
+                cache.put(url, hash, elements);
+                events.log("✓ Collected %s interactive elements", String.valueOf(elements.size()));
+            }
 
-                // Добавляем элементы в трекер
-                for (String element : elements) {
-                    coverageTracker.addElement(element);
+        } catch (Exception e) {
+            events.log("⚠️ Could not collect elements: %s", e.getMessage());
+        }
+        return elements;
+    }
+
+    private void addRecords(Object records, List<HarvestedElement> into) {
+        if (records instanceof List<?> rawList) {
+            for (Object item : rawList) {
+                HarvestedElement element = HarvestedElement.fromPayload(item);
+                if (element != null) {
+                    into.add(element);
+                    register(element);
                 }
+            }
+        }
+    }
 
-                System.out.println("✓ Collected " + elements.size() + " interactive elements");
+    /**
+     * Включает инкрементальный сбор для всех последующих переходов на этой странице.
+     * Вызывать нужно до navigate: скрипт ставится через addInitScript
+     */
+    public void enableIncrementalHarvesting() {
+        if (incremental) {
+            return;
+        }
+        page.exposeBinding(BATCH_BINDING, (source, args) -> {
+            if (args.length > 0) {
+                applyBatch(args[0]);
             }
+            return null;
+        });
+        page.addInitScript(harvester.incrementalScript());
+        incremental = true;
+    }
 
-        } catch (Exception e) {
-            System.out.println("⚠️ Could not collect elements: " + e.getMessage());
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    // Элементы, которые сейчас есть в текущем документе страницы (только в инкрементальном режиме)
+    public Set<String> getLiveInventory() {
+        return Collections.unmodifiableSet(liveInventory);
+    }
+
+    private void applyBatch(Object batch) {
+        if (!(batch instanceof Map<?, ?> changes)) {
+            return;
+        }
+        // Первая пачка нового документа: элементы прошлого документа на странице уже не живут
+        if (Boolean.TRUE.equals(changes.get("reset"))) {
+            liveInventory.clear();
+        }
+        if (changes.get("added") instanceof List<?> added) {
+            for (Object item : added) {
+                HarvestedElement element = HarvestedElement.fromPayload(item);
+                if (element != null) {
+                    liveInventory.add(element.fingerprint());
+                    register(element);
+                }
+            }
+        }
+        // Удаленные элементы остаются в общем инвентаре трекера: они были на странице
+        if (changes.get("removed") instanceof List<?> removed) {
+            for (Object item : removed) {
+                HarvestedElement element = HarvestedElement.fromPayload(item);
+                if (element != null) {
+                    liveInventory.remove(element.fingerprint());
+                }
+            }
+        }
+    }
+
+    /**
+     * Отпечаток элемента, с которым работает тест, в том же формате, что и при сборе.
+     * Локатор сам дожидается элемента в DOM. Если элемент уже исчез, отпечатком
+     * становится селектор: он стабилен между запусками, но со сбором не совпадет
+     */
+    public HarvestedElement describe(Locator locator, String selector) {
+        try {
+            HarvestedElement element = HarvestedElement.fromPayload(locator.evaluate(harvester.fingerprintScript()));
+            if (element != null) {
+                return element;
+            }
+        } catch (PlaywrightException e) {
+            events.log("⚠️ Could not fingerprint %s: %s", selector, e.getMessage());
+        }
+        return new HarvestedElement(null, "selector:" + selector);
+    }
+
+    /**
+     * Заполняет поля по CSS-селекторам за один вызов и возвращает отпечатки заполненных.
+     * Список короче входного, если поле с этим номером не удалось заполнить в браузере
+     */
+    public List<HarvestedElement> fillInPage(List<String> selectors, List<String> values) {
+        List<List<String>> steps = new ArrayList<>(selectors.size());
+        for (int i = 0; i < selectors.size(); i++) {
+            steps.add(List.of(selectors.get(i), values.get(i)));
+        }
+        List<HarvestedElement> filled = new ArrayList<>();
+        try {
+            if (page.evaluate(harvester.batchFillScript(), steps) instanceof List<?> records) {
+                for (Object record : records) {
+                    HarvestedElement element = HarvestedElement.fromPayload(record);
+                    if (element == null) {
+                        break;
+                    }
+                    filled.add(element);
+                }
+            }
+        } catch (PlaywrightException e) {
+            events.log("⚠️ Batch fill fell back to single steps: %s", e.getMessage());
         }
+        return filled;
     }
 
     /**
-     * Генерирует уникальный идентификатор для элемента
+     * Отмечает элемент покрытым по его каноническому отпечатку и считает действие
      */
-    public String generateElementIdentifier(String selector, String description) {
-        return selector + "::" + (description != null ? description : "element");
+    public void markCovered(HarvestedElement element, ActionKind kind) {
+        events.elementCovered(element.fingerprint(), pageName, element.type(), kind, testId);
     }
-}
\ No newline at end of file
+}
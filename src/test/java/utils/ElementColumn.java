@@ -0,0 +1,85 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Значения по номеру интернированного элемента (см. ElementInterner) вместо карты с упакованными ключами.
+ * Как и ConcurrentBitSet, хранит блоки AtomicReferenceArray по 4K: блок выделяется, когда интернер
+ * выдает номера за его границей, уже записанные значения при росте не копируются и не теряются
+ */
+final class ElementColumn<T> {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private volatile AtomicReferenceArray<?>[] chunks = new AtomicReferenceArray<?>[0];
+
+    @SuppressWarnings("unchecked")
+    T get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        AtomicReferenceArray<?>[] current = chunks;
+        int chunkIndex = id / CHUNK_SIZE;
+        AtomicReferenceArray<?> chunk = chunkIndex < current.length ? current[chunkIndex] : null;
+        return chunk == null ? null : (T) chunk.get(id % CHUNK_SIZE);
+    }
+
+    /**
+     * Записывает значение, если по номеру еще ничего нет, и возвращает то, что в итоге лежит в ячейке
+     */
+    T putIfAbsent(int id, T value) {
+        AtomicReferenceArray<T> chunk = chunk(id / CHUNK_SIZE);
+        int slot = id % CHUNK_SIZE;
+        return chunk.compareAndSet(slot, null, value) ? value : chunk.get(slot);
+    }
+
+    T computeIfAbsent(int id, Supplier<T> factory) {
+        T value = get(id);
+        return value != null ? value : putIfAbsent(id, factory.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<T> action) {
+        for (AtomicReferenceArray<?> chunk : chunks) {
+            if (chunk == null) {
+                continue;
+            }
+            for (int i = 0; i < chunk.length(); i++) {
+                Object value = chunk.get(i);
+                if (value != null) {
+                    action.accept((T) value);
+                }
+            }
+        }
+    }
+
+    // Сброс между запусками; одновременная запись во время сброса не поддерживается
+    synchronized void clear() {
+        chunks = new AtomicReferenceArray<?>[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<T> chunk(int chunkIndex) {
+        AtomicReferenceArray<?>[] current = chunks;
+        if (chunkIndex < current.length && current[chunkIndex] != null) {
+            return (AtomicReferenceArray<T>) current[chunkIndex];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunkIndex >= current.length) {
+                current = Arrays.copyOf(current, Math.max(chunkIndex + 1, current.length * 2));
+            } else if (current[chunkIndex] != null) {
+                return (AtomicReferenceArray<T>) current[chunkIndex];
+            } else {
+                current = current.clone();
+            }
+            AtomicReferenceArray<T> chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+            current[chunkIndex] = chunk;
+            chunks = current;
+            return chunk;
+        }
+    }
+}
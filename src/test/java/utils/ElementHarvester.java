@@ -0,0 +1,48 @@
+package utils;
+
+import java.util.Locale;
+
+/**
+ * Движок сбора интерактивных элементов. Движок задает скрипты, которые DOMElementExtractor
+ * выполняет в браузере: полный сбор, сбор с кэшем, отпечаток элемента для действия,
+ * пакетное заполнение и инкрементальный сбор. Выбирается через -Dui.coverage.harvester
+ */
+public interface ElementHarvester {
+
+    // Сбор по CSS-селектору (по умолчанию)
+    ElementHarvester CSS_SCAN = new ScriptHarvester("css", ScriptHarvester.CSS_CANDIDATES);
+
+    // Экспериментальный сбор по ARIA-ролям: упрощенные правила в духе getByRole, не движок доступности Playwright
+    ElementHarvester ROLES = new ScriptHarvester("roles", ScriptHarvester.ROLE_CANDIDATES);
+
+    String name();
+
+    // () => [[tag, отпечаток], ...]
+    String harvestScript();
+
+    // (известные хеши) => [хеш структуры, записи или null]
+    String cachedHarvestScript();
+
+    // (el) => [tag, отпечаток]
+    String fingerprintScript();
+
+    // ([[селектор, значение], ...]) => [[tag, отпечаток], ...] для заполненных полей
+    String batchFillScript();
+
+    // Скрипт для addInitScript: MutationObserver, который присылает изменения инвентаря
+    String incrementalScript();
+
+    static ElementHarvester named(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "css":
+            case "scan": return CSS_SCAN;
+            case "roles":
+            case "aria": return ROLES;
+            default: throw new IllegalArgumentException("Unknown harvester: " + name);
+        }
+    }
+
+    static ElementHarvester fromSystemProperties() {
+        return named(System.getProperty("ui.coverage.harvester", "css"));
+    }
+}
@@ -0,0 +1,36 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка выбора движка сбора без браузера
+ */
+public class ElementHarvesterTest {
+
+    @Test
+    void testNamedAcceptsAliases() {
+        assertSame(ElementHarvester.CSS_SCAN, ElementHarvester.named("css"));
+        assertSame(ElementHarvester.CSS_SCAN, ElementHarvester.named(" Scan "));
+        assertSame(ElementHarvester.ROLES, ElementHarvester.named("roles"));
+        assertSame(ElementHarvester.ROLES, ElementHarvester.named("ARIA"));
+        assertThrows(IllegalArgumentException.class, () -> ElementHarvester.named("xpath"));
+    }
+
+    @Test
+    void testEnginesDoNotShareCachedInventories() {
+        InventoryCache cache = new InventoryCache(10, 100, null, "v");
+        String url = "https://app.test/form";
+        String cssKey = InventoryCache.pageKey(ElementHarvester.CSS_SCAN, url);
+        String rolesKey = InventoryCache.pageKey(ElementHarvester.ROLES, url);
+        cache.put(cssKey, "h1", List.of(new HarvestedElement("DIV", "id:layout")));
+
+        assertNotEquals(cssKey, rolesKey);
+        assertEquals(List.of(), cache.knownHashes(rolesKey));
+        assertNull(cache.get(rolesKey, "h1"));
+        assertNotNull(cache.get(cssKey, "h1"));
+    }
+}
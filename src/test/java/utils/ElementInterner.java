@@ -0,0 +1,56 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Интернирование отпечатков элементов: каждой строке один раз выдается
+ * компактный номер, дальше трекер сравнивает и хранит только номера
+ */
+public class ElementInterner {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Номер -> строка. Запись под блокировкой, массив публикуется через volatile
+    private volatile String[] names = new String[256];
+    private int size;
+
+    /**
+     * Номер отпечатка, новый выдается при первом обращении
+     */
+    public int intern(String fingerprint) {
+        Integer id = ids.get(fingerprint);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(fingerprint);
+            if (id != null) {
+                return id;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+                names = current;
+            }
+            current[size] = fingerprint;
+            // Номер становится виден другим потокам только после записи строки в массив
+            ids.put(fingerprint, size);
+            return size++;
+        }
+    }
+
+    // Номер уже известного отпечатка или -1
+    public int find(String fingerprint) {
+        Integer id = ids.get(fingerprint);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
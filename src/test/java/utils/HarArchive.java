@@ -0,0 +1,90 @@
+package utils;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.HarMode;
+import com.microsoft.playwright.options.HarNotFound;
+import com.microsoft.playwright.options.RouteFromHarUpdateContentPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Запись и воспроизведение сетевого трафика страниц в HAR-архивы.
+ * В режиме record каждый navigateWithCoverage пишет архив страницы (файл сохраняется
+ * при закрытии контекста), в режиме replay ответы берутся из архива без обращения к сети.
+ * Режим задается -Dui.coverage.har=off|record|replay, каталог -Dui.coverage.har.dir
+ */
+public class HarArchive {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    public static final String DEFAULT_DIR = "src/test/resources/har";
+
+    private final Mode mode;
+    private final Path directory;
+
+    public HarArchive(Mode mode, Path directory) {
+        this.mode = mode;
+        this.directory = directory;
+    }
+
+    public static HarArchive fromSystemProperties() {
+        return new HarArchive(
+                Mode.valueOf(System.getProperty("ui.coverage.har", "off").trim().toUpperCase(Locale.ROOT)),
+                Paths.get(System.getProperty("ui.coverage.har.dir", DEFAULT_DIR)));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // Запись сохраняется только при закрытии контекста, поэтому такой контекст нельзя переиспользовать
+    public boolean isRecording() {
+        return mode == Mode.RECORD;
+    }
+
+    /**
+     * Подключает архив страницы перед переходом на нее.
+     * Локальные страницы (FixtureServer) и так не ходят в сеть, для них архив не нужен
+     */
+    public void attach(Page page, String pageName, String url) {
+        if (mode == Mode.OFF || isLocal(url)) {
+            return;
+        }
+        Path archive = archiveFor(pageName);
+
+        if (mode == Mode.RECORD) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create HAR directory " + directory, e);
+            }
+            page.routeFromHAR(archive, new Page.RouteFromHAROptions()
+                    .setUpdate(true)
+                    .setUpdateContent(RouteFromHarUpdateContentPolicy.EMBED)
+                    .setUpdateMode(HarMode.MINIMAL));
+            System.out.println("⏺️ Recording HAR: " + archive);
+        } else {
+            if (!Files.exists(archive)) {
+                throw new IllegalStateException("No HAR archive for page '" + pageName + "': " + archive
+                        + ". Record it first with -Dui.coverage.har=record");
+            }
+            // Запросы, которых нет в архиве, обрываем: прогон должен быть детерминированным и без сети
+            page.routeFromHAR(archive, new Page.RouteFromHAROptions()
+                    .setUpdate(false)
+                    .setNotFound(HarNotFound.ABORT));
+        }
+    }
+
+    private static boolean isLocal(String url) {
+        return url.startsWith("http://127.0.0.1:") || url.startsWith("http://localhost:") || url.startsWith("file:");
+    }
+
+    public Path archiveFor(String pageName) {
+        String slug = pageName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+        return directory.resolve((slug.isEmpty() ? "page" : slug) + ".har");
+    }
+}
@@ -0,0 +1,27 @@
+package utils;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Компактное описание элемента, собранного со страницы DOMElementExtractor'ом
+ *
+ * @param tag         имя тега в верхнем регистре (BUTTON, INPUT, ...) или null
+ * @param fingerprint канонический отпечаток: data-testid:..., id:..., role:роль:имя[~N] или path:TAG@хеш
+ */
+public record HarvestedElement(String tag, String fingerprint) {
+
+    // Разбираем запись вида [tag, fingerprint], которую возвращает браузер
+    static HarvestedElement fromPayload(Object payload) {
+        if (!(payload instanceof List<?> fields) || fields.size() < 2
+                || !(fields.get(1) instanceof String fingerprint) || fingerprint.isEmpty()) {
+            return null;
+        }
+        return new HarvestedElement(fields.get(0) instanceof String tag ? tag : null, fingerprint);
+    }
+
+    // Тип элемента для отчета: тег в нижнем регистре
+    public String type() {
+        return tag == null ? null : tag.toLowerCase(Locale.ROOT);
+    }
+}
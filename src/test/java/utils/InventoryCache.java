@@ -0,0 +1,219 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш собранных инвентарей страниц. Ключ - канонический URL и хеш структуры DOM,
+ * который браузер считает без layout: если тест снова открывает ту же страницу в том же
+ * состоянии, полный проход по DOM не нужен. Вытеснение LRU по числу страниц и по суммарному
+ * числу элементов. С -Dui.coverage.cache.file кэш переживает запуск: файл привязан
+ * к версии скриптов сбора и игнорируется, если скрипты изменились
+ */
+public class InventoryCache {
+
+    private static final String HEADER = "# ui-coverage-inventory v1 ";
+
+    private final int maxPages;
+    private final int maxElements;
+    private final Path file;
+    private final String version;
+
+    // Порядок доступа: первым вытесняется то, что дольше всего не запрашивали
+    private final LinkedHashMap<String, List<HarvestedElement>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int elementCount;
+    private boolean loaded;
+    private boolean changed;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxPages    сколько вариантов страниц хранить
+     * @param maxElements сколько элементов хранить во всех вариантах вместе
+     * @param file        файл для хранения между запусками или null
+     * @param version     версия скрипта сбора: кэш другой версии с диска не читается
+     */
+    public InventoryCache(int maxPages, int maxElements, Path file, String version) {
+        this.maxPages = maxPages;
+        this.maxElements = maxElements;
+        this.file = file;
+        this.version = version;
+    }
+
+    // Ленивая и безопасная публикация экземпляра через holder-класс
+    private static final class Holder {
+        private static final InventoryCache INSTANCE = fromSystemProperties();
+    }
+
+    public static InventoryCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("ui.coverage.cache"));
+    }
+
+    static InventoryCache fromSystemProperties() {
+        String path = System.getProperty("ui.coverage.cache.file");
+        return new InventoryCache(
+                Integer.getInteger("ui.coverage.cache.size", 256),
+                Integer.getInteger("ui.coverage.cache.maxElements", 200_000),
+                path == null || path.isBlank() ? null : Paths.get(path),
+                Integer.toHexString((ElementHarvester.CSS_SCAN.cachedHarvestScript()
+                        + ElementHarvester.ROLES.cachedHarvestScript()).hashCode()));
+    }
+
+    /**
+     * Ключ страницы в кэше: канонический URL вместе с движком сбора. Инвентарь, собранный
+     * одним движком, не достается другому, даже если хеш структуры совпал
+     */
+    public static String pageKey(ElementHarvester harvester, String url) {
+        return harvester.name() + ' ' + url;
+    }
+
+    /**
+     * Хеши структуры, для которых у страницы уже есть инвентарь. Браузер сравнивает
+     * с ними свой хеш и не собирает элементы, если нашел совпадение
+     */
+    public synchronized List<String> knownHashes(String url) {
+        loadIfNeeded();
+        String prefix = url + '\n';
+        List<String> hashes = new ArrayList<>();
+        for (String key : entries.keySet()) {
+            if (key.startsWith(prefix)) {
+                hashes.add(key.substring(prefix.length()));
+            }
+        }
+        return hashes;
+    }
+
+    // Инвентарь страницы или null; null считается промахом, после него ожидается полный сбор и put
+    public synchronized List<HarvestedElement> get(String url, String hash) {
+        loadIfNeeded();
+        List<HarvestedElement> elements = entries.get(url + '\n' + hash);
+        if (elements == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return elements;
+    }
+
+    public synchronized void put(String url, String hash, List<HarvestedElement> elements) {
+        loadIfNeeded();
+        store(url + '\n' + hash, List.copyOf(elements));
+        changed = true;
+    }
+
+    private void store(String key, List<HarvestedElement> elements) {
+        List<HarvestedElement> previous = entries.put(key, elements);
+        elementCount += elements.size() - (previous == null ? 0 : previous.size());
+        Iterator<Map.Entry<String, List<HarvestedElement>>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxPages || elementCount > maxElements) && eldest.hasNext()) {
+            Map.Entry<String, List<HarvestedElement>> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            elementCount -= entry.getValue().size();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        loadIfNeeded();
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Сохраняет кэш в файл, если он задан и что-то изменилось. Форки пишут файл целиком
+     * через временный файл, поэтому остается версия последнего завершившегося форка
+     */
+    public synchronized void save() throws IOException {
+        if (file == null || !changed) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            writer.write(HEADER + version + "\n");
+            for (Map.Entry<String, List<HarvestedElement>> entry : entries.entrySet()) {
+                int split = entry.getKey().indexOf('\n');
+                writer.write("P\t" + CoverageHistory.escape(entry.getKey().substring(0, split)) + "\t"
+                        + CoverageHistory.escape(entry.getKey().substring(split + 1)) + "\n");
+                for (HarvestedElement element : entry.getValue()) {
+                    writer.write("E\t" + CoverageHistory.escape(element.tag() == null ? "" : element.tag()) + "\t"
+                            + CoverageHistory.escape(element.fingerprint()) + "\n");
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        changed = false;
+    }
+
+    // Читает файл при первом обращении; поврежденный или чужой версии файл просто пропускается
+    private void loadIfNeeded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            if (!(HEADER + version).equals(reader.readLine())) {
+                return;
+            }
+            String key = null;
+            List<HarvestedElement> elements = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 3) {
+                    continue;
+                }
+                if ("P".equals(fields[0])) {
+                    if (key != null) {
+                        store(key, List.copyOf(elements));
+                    }
+                    key = CoverageHistory.unescape(fields[1]) + '\n' + CoverageHistory.unescape(fields[2]);
+                    elements = new ArrayList<>();
+                } else if ("E".equals(fields[0]) && key != null) {
+                    String tag = CoverageHistory.unescape(fields[1]);
+                    elements.add(new HarvestedElement(tag.isEmpty() ? null : tag, CoverageHistory.unescape(fields[2])));
+                }
+            }
+            if (key != null) {
+                store(key, List.copyOf(elements));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Could not read inventory cache " + file + ": " + e.getMessage());
+        }
+    }
+}
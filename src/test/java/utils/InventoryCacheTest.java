@@ -0,0 +1,59 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка кэша инвентарей без браузера: вытеснение и хранение между запусками
+ */
+public class InventoryCacheTest {
+
+    private static final List<HarvestedElement> FORM = List.of(
+            new HarvestedElement("INPUT", "id:userName"),
+            new HarvestedElement("BUTTON", "role:button:Submit"));
+
+    @Test
+    void testLeastRecentlyUsedPageIsEvictedFirst() {
+        InventoryCache cache = new InventoryCache(2, 100, null, "v");
+        cache.put("https://app.test/a", "h1", FORM);
+        cache.put("https://app.test/b", "h1", FORM);
+        assertNotNull(cache.get("https://app.test/a", "h1"));
+        cache.put("https://app.test/c", "h1", FORM);
+
+        assertNull(cache.get("https://app.test/b", "h1"));
+        assertEquals(FORM, cache.get("https://app.test/a", "h1"));
+        assertEquals(List.of("h1"), cache.knownHashes("https://app.test/c"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testElementBudgetEvictsOldVariants() {
+        InventoryCache cache = new InventoryCache(10, 3, null, "v");
+        cache.put("https://app.test/a", "h1", FORM);
+        cache.put("https://app.test/a", "h2", FORM);
+
+        assertEquals(List.of("h2"), cache.knownHashes("https://app.test/a"));
+    }
+
+    @Test
+    void testCacheSurvivesRunOnlyForSameScriptVersion(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("inventory.tsv.gz");
+        InventoryCache first = new InventoryCache(10, 100, file, "v1");
+        first.put("https://app.test/a\tb", "h1", List.of(new HarvestedElement(null, "selector:#a\tb")));
+        first.put("https://app.test/form", "h2", FORM);
+        first.save();
+
+        InventoryCache sameVersion = new InventoryCache(10, 100, file, "v1");
+        assertEquals(FORM, sameVersion.get("https://app.test/form", "h2"));
+        assertEquals(List.of(new HarvestedElement(null, "selector:#a\tb")), sameVersion.get("https://app.test/a\tb", "h1"));
+
+        InventoryCache otherVersion = new InventoryCache(10, 100, file, "v2");
+        assertEquals(0, otherVersion.size() + otherVersion.knownHashes("https://app.test/form").size());
+    }
+}
@@ -0,0 +1,130 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лог-линейная гистограмма задержек в микросекундах (в духе HdrHistogram):
+ * каждая степень двойки делится на 32 корзины, поэтому относительная погрешность
+ * перцентилей не больше ~3% при фиксированных 7 КБ памяти. Запись - один
+ * атомарный инкремент без блокировок и аллокаций
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Верхняя граница ~2^31 мкс (35 минут), все что больше попадает в последнюю корзину
+    private static final int MAX_MAGNITUDE = 31;
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void recordNanos(long nanos) {
+        recordMicros(Math.max(0, nanos / 1_000));
+    }
+
+    public void recordMicros(long micros) {
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    // Наибольшее значение, которое попадает в корзину
+    static long bucketUpperMicros(int index) {
+        int shift = index / SUB_BUCKETS - 1;
+        if (shift < 0) {
+            return index;
+        }
+        long lower = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalMillis() {
+        return totalMicros.sum() / 1_000.0;
+    }
+
+    public double getMeanMillis() {
+        long calls = count.sum();
+        return calls == 0 ? 0.0 : totalMicros.sum() / (double) calls / 1_000;
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /**
+     * Перцентиль в миллисекундах, percentile от 0 до 100
+     */
+    public double getPercentileMillis(double percentile) {
+        long calls = count.sum();
+        if (calls == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * calls));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperMicros(i), maxMicros.get()) / 1_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    // Непустые корзины для выгрузки: пары [индекс, количество]
+    public long[][] nonEmptyBuckets() {
+        int nonEmpty = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets.get(i) != 0) nonEmpty++;
+        }
+        long[][] result = new long[nonEmpty][];
+        int next = 0;
+        for (int i = 0; i < BUCKETS && next < nonEmpty; i++) {
+            long value = buckets.get(i);
+            if (value != 0) result[next++] = new long[]{i, value};
+        }
+        return result;
+    }
+
+    /**
+     * Добавляет выгруженные данные другой гистограммы (например, из другого форка)
+     */
+    public void merge(long[][] otherBuckets, long otherTotalMicros, long otherMaxMicros) {
+        for (long[] bucket : otherBuckets) {
+            if (bucket.length < 2 || bucket[0] < 0 || bucket[0] >= BUCKETS) continue;
+            buckets.addAndGet((int) bucket[0], bucket[1]);
+            count.add(bucket[1]);
+        }
+        totalMicros.add(otherTotalMicros);
+        maxMicros.accumulate(otherMaxMicros);
+    }
+
+    long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    long getMaxMicros() {
+        return maxMicros.get();
+    }
+}
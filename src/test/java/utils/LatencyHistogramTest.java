@@ -0,0 +1,55 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка точности и слияния лог-линейной гистограммы задержек
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketsAreContiguousAndBoundRelativeError() {
+        int previous = -1;
+        for (long micros = 0; micros < 5_000_000; micros += micros < 1_000 ? 1 : 997) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            assertTrue(index >= previous, "bucket index must not decrease at " + micros);
+            long upper = LatencyHistogram.bucketUpperMicros(index);
+            assertTrue(upper >= micros, "upper bound below value at " + micros);
+            assertTrue(upper - micros <= Math.max(1, micros / 32), "error too large at " + micros);
+            previous = index;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testPercentilesOfUniformLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.recordNanos(millis * 1_000_000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMillis(), 0.001);
+        assertEquals(1000.0, histogram.getMaxMillis(), 0.001);
+        assertEquals(500, histogram.getPercentileMillis(50), 500 * 0.04);
+        assertEquals(950, histogram.getPercentileMillis(95), 950 * 0.04);
+        assertEquals(1000.0, histogram.getPercentileMillis(100), 0.001);
+    }
+
+    @Test
+    void testMergeAddsExportedBuckets() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.recordMicros(100);
+        second.recordMicros(100);
+        second.recordMicros(90_000);
+
+        first.merge(second.nonEmptyBuckets(), second.getTotalMicros(), second.getMaxMicros());
+
+        assertEquals(3, first.getCount());
+        assertEquals(90.2, first.getTotalMillis(), 0.001);
+        assertEquals(90.0, first.getMaxMillis(), 0.001);
+    }
+}
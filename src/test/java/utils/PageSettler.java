@@ -0,0 +1,137 @@
+package utils;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.options.LoadState;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ожидание "успокоения" страницы после действия вместо фиксированных пауз.
+ * Стратегия задается через -Dui.coverage.settle, верхняя граница ожидания
+ * через -Dui.coverage.settle.timeout. Фиксированная пауза остается только как явный режим sleep
+ */
+public class PageSettler {
+
+    public enum Mode {
+        NETWORK_IDLE,    // нет сетевых запросов 500 мс (networkidle Playwright)
+        DOM_QUIET,       // MutationObserver не видит изменений в течение quiet-окна
+        ANIMATION_FRAME, // браузер отрисовал следующий кадр
+        SLEEP,           // старое поведение: фиксированная пауза
+        NONE;
+
+        static Mode parse(String value) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT).replace("-", "").replace("_", "");
+            switch (normalized) {
+                case "networkidle": return NETWORK_IDLE;
+                case "domquiet": return DOM_QUIET;
+                case "frame":
+                case "animationframe": return ANIMATION_FRAME;
+                case "sleep": return SLEEP;
+                case "none": return NONE;
+                default: throw new IllegalArgumentException("Unknown settle mode: " + value);
+            }
+        }
+    }
+
+    // Promise завершается, когда DOM не меняется quietMs, или по истечении timeoutMs
+    private static final String DOM_QUIET_SCRIPT = """
+            ({ quietMs, timeoutMs }) => new Promise(resolve => {
+              let quietTimer;
+              let capTimer;
+              const observer = new MutationObserver(() => {
+                clearTimeout(quietTimer);
+                quietTimer = setTimeout(() => done(true), quietMs);
+              });
+              const done = (quiet) => {
+                observer.disconnect();
+                clearTimeout(quietTimer);
+                clearTimeout(capTimer);
+                resolve(quiet);
+              };
+              observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });
+              quietTimer = setTimeout(() => done(true), quietMs);
+              capTimer = setTimeout(() => done(false), timeoutMs);
+            })
+            """;
+
+    // Двойной requestAnimationFrame: колбэк второго кадра гарантирует, что первый уже отрисован
+    private static final String ANIMATION_FRAME_SCRIPT =
+            "() => new Promise(resolve => requestAnimationFrame(() => requestAnimationFrame(() => resolve(true))))";
+
+    private final Page page;
+    private final Mode mode;
+    private final int timeoutMs;
+    private final int quietMs;
+
+    public PageSettler(Page page, Mode mode, int timeoutMs, int quietMs) {
+        this.page = page;
+        this.mode = mode;
+        this.timeoutMs = timeoutMs;
+        this.quietMs = quietMs;
+    }
+
+    public static PageSettler fromSystemProperties(Page page) {
+        return new PageSettler(page,
+                Mode.parse(System.getProperty("ui.coverage.settle", "domquiet")),
+                Integer.getInteger("ui.coverage.settle.timeout", 5000),
+                Integer.getInteger("ui.coverage.settle.quiet", 200));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Ждет сигнал выбранной стратегии. fallbackSleepMs используется только в режиме sleep
+     */
+    public void settle(int fallbackSleepMs) {
+        try {
+            switch (mode) {
+                case NETWORK_IDLE:
+                    page.waitForLoadState(LoadState.NETWORKIDLE, new Page.WaitForLoadStateOptions().setTimeout(timeoutMs));
+                    break;
+                case DOM_QUIET:
+                    Object quiet = page.evaluate(DOM_QUIET_SCRIPT, Map.of("quietMs", quietMs, "timeoutMs", timeoutMs));
+                    if (Boolean.FALSE.equals(quiet)) {
+                        System.out.println("⚠️ DOM did not settle within " + timeoutMs + " ms, continuing");
+                    }
+                    break;
+                case ANIMATION_FRAME:
+                    page.evaluate(ANIMATION_FRAME_SCRIPT);
+                    break;
+                case SLEEP:
+                    page.waitForTimeout(fallbackSleepMs);
+                    break;
+                case NONE:
+                    break;
+            }
+        } catch (PlaywrightException e) {
+            // Действие могло запустить навигацию и уничтожить контекст выполнения скрипта:
+            // в этом случае достаточно дождаться загрузки нового документа
+            waitForDocument();
+        }
+    }
+
+    /**
+     * Ждет пользовательское условие (JS-выражение или функция), но не дольше верхней границы
+     */
+    public boolean settleUntil(String predicate) {
+        try {
+            page.waitForFunction(predicate, null, new Page.WaitForFunctionOptions().setTimeout(timeoutMs));
+            return true;
+        } catch (PlaywrightException e) {
+            System.out.println("⚠️ Condition not met within " + timeoutMs + " ms: " + predicate);
+            return false;
+        }
+    }
+
+    private void waitForDocument() {
+        try {
+            page.waitForLoadState(LoadState.DOMCONTENTLOADED, new Page.WaitForLoadStateOptions().setTimeout(timeoutMs));
+        } catch (PlaywrightException ignored) {
+            // Верхняя граница достигнута, продолжаем тест
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package utils;
+
+import com.microsoft.playwright.APIResponse;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Блокировка ресурсов, которые не нужны для покрытия UI: картинки, шрифты, медиа,
+ * реклама и аналитика. Ставится на BrowserContext через context.route и считает,
+ * сколько запросов и байт удалось не загружать.
+ *
+ * Настройки: -Dui.coverage.block=false (выключить), ui.coverage.block.types (типы ресурсов),
+ * ui.coverage.block.urls (запрещенные фрагменты URL), ui.coverage.allow.urls (разрешенные),
+ * ui.coverage.block.measure=true (узнавать размер заблокированных ответов через HEAD)
+ */
+public class ResourceBlocker {
+
+    private static final String DEFAULT_TYPES = "image,media,font";
+    private static final String DEFAULT_DENY_URLS = String.join(",",
+            "google-analytics.com", "googletagmanager.com", "googlesyndication.com",
+            "doubleclick.net", "adservice.google", "amazon-adsystem.com",
+            "facebook.net", "hotjar.com", "mc.yandex.ru", "ads.pubmatic.com");
+
+    // Скрипты и XHR не обрываем, а отвечаем пустым телом, чтобы страница не сыпала ошибками
+    private static final Set<String> STUBBED_TYPES = Set.of("script", "xhr", "fetch", "stylesheet");
+
+    private static final Map<BrowserContext, ResourceBlocker> INSTALLED =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Сколько удалось сэкономить с момента предыдущего снимка
+     */
+    public static class Savings {
+        private final Map<String, Long> requestsByType;
+        private final long bytes;
+
+        Savings(Map<String, Long> requestsByType, long bytes) {
+            this.requestsByType = requestsByType;
+            this.bytes = bytes;
+        }
+
+        public long getRequests() {
+            return requestsByType.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public Map<String, Long> getRequestsByType() {
+            return requestsByType;
+        }
+
+        // Известно только в режиме ui.coverage.block.measure, иначе 0
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            String details = requestsByType.entrySet().stream()
+                    .map(e -> e.getKey() + ": " + e.getValue())
+                    .collect(Collectors.joining(", "));
+            return getRequests() + " requests (" + details + ")"
+                    + (bytes > 0 ? ", ~" + (bytes / 1024) + " KB" : "");
+        }
+    }
+
+    private final Set<String> blockedTypes;
+    private final List<String> denyUrls;
+    private final List<String> allowUrls;
+    private final boolean measure;
+    private final Map<String, LongAdder> blocked = new ConcurrentHashMap<>();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public ResourceBlocker(Set<String> blockedTypes, List<String> denyUrls, List<String> allowUrls, boolean measure) {
+        this.blockedTypes = blockedTypes;
+        this.denyUrls = denyUrls;
+        this.allowUrls = allowUrls;
+        this.measure = measure;
+    }
+
+    public static ResourceBlocker fromSystemProperties() {
+        return new ResourceBlocker(
+                Set.copyOf(split(System.getProperty("ui.coverage.block.types", DEFAULT_TYPES))),
+                split(System.getProperty("ui.coverage.block.urls", DEFAULT_DENY_URLS)),
+                split(System.getProperty("ui.coverage.allow.urls", "")),
+                Boolean.getBoolean("ui.coverage.block.measure"));
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("ui.coverage.block"));
+    }
+
+    /**
+     * Ставит блокировку на контекст. Повторная установка на тот же контекст ничего не делает.
+     * Под общей блокировкой только отметка об установке: route - обращение к драйверу,
+     * и параллельные рабочие потоки не должны ждать его друг за другом
+     */
+    public static ResourceBlocker installIfEnabled(BrowserContext context) {
+        if (!isEnabled()) {
+            return null;
+        }
+        ResourceBlocker blocker = fromSystemProperties();
+        ResourceBlocker installed = INSTALLED.putIfAbsent(context, blocker);
+        if (installed != null) {
+            return installed;
+        }
+        try {
+            context.route("**/*", blocker::handle);
+        } catch (PlaywrightException e) {
+            INSTALLED.remove(context, blocker);
+            throw e;
+        }
+        return blocker;
+    }
+
+    // Блокировщик, установленный на контекст, или null
+    public static ResourceBlocker of(BrowserContext context) {
+        return INSTALLED.get(context);
+    }
+
+    void handle(Route route) {
+        Request request = route.request();
+        String type = request.resourceType();
+        if (!shouldBlock(type, request.url())) {
+            route.resume();
+            return;
+        }
+
+        if (measure) {
+            bytesSaved.add(contentLength(route));
+        }
+        blocked.computeIfAbsent(type, key -> new LongAdder()).increment();
+
+        if (STUBBED_TYPES.contains(type)) {
+            route.fulfill(new Route.FulfillOptions().setStatus(200).setBody(""));
+        } else {
+            route.abort("blockedbyclient");
+        }
+    }
+
+    boolean shouldBlock(String resourceType, String url) {
+        String lowerUrl = url.toLowerCase(Locale.ROOT);
+        for (String allowed : allowUrls) {
+            if (lowerUrl.contains(allowed)) return false;
+        }
+        if (blockedTypes.contains(resourceType)) return true;
+        for (String denied : denyUrls) {
+            if (lowerUrl.contains(denied)) return true;
+        }
+        return false;
+    }
+
+    // HEAD-запрос вне браузера: тело не скачивается, а Content-Length показывает размер ответа
+    private static long contentLength(Route route) {
+        try {
+            APIResponse head = route.fetch(new Route.FetchOptions().setMethod("HEAD").setMaxRedirects(2));
+            String length = head.headers().get("content-length");
+            head.dispose();
+            return length == null ? 0 : Long.parseLong(length.trim());
+        } catch (PlaywrightException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Возвращает экономию с прошлого вызова и обнуляет счетчики (для отчета по каждому тесту)
+     */
+    public Savings drainSavings() {
+        Map<String, Long> byType = new TreeMap<>();
+        blocked.forEach((type, count) -> {
+            long value = count.sumThenReset();
+            if (value > 0) byType.put(type, value);
+        });
+        return new Savings(byType, bytesSaved.sumThenReset());
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> s.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,32 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка правил блокировки ресурсов без браузера
+ */
+public class ResourceBlockerTest {
+
+    private final ResourceBlocker blocker = new ResourceBlocker(
+            Set.of("image", "font"), List.of("google-analytics.com", "doubleclick.net"), List.of("cdn.app.test/logo"), false);
+
+    @Test
+    void testBlockedTypesAndDeniedUrls() {
+        assertTrue(blocker.shouldBlock("image", "https://app.test/banner.png"));
+        assertTrue(blocker.shouldBlock("font", "https://fonts.app.test/roboto.woff2"));
+        assertTrue(blocker.shouldBlock("script", "https://www.Google-Analytics.com/analytics.js"));
+        assertFalse(blocker.shouldBlock("script", "https://app.test/main.js"));
+        assertFalse(blocker.shouldBlock("document", "https://app.test/"));
+    }
+
+    @Test
+    void testAllowListWinsOverTypesAndDenyList() {
+        assertFalse(blocker.shouldBlock("image", "https://CDN.app.test/logo.svg"));
+        assertTrue(blocker.shouldBlock("image", "https://cdn.app.test/photo.jpg"));
+    }
+}
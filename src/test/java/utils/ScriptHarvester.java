@@ -0,0 +1,462 @@
+package utils;
+
+/**
+ * Движок сбора на скриптах в браузере. Движки отличаются только выбором кандидатов,
+ * отпечатки, проверка видимости, кэш и инкрементальный режим у них общие, поэтому
+ * отпечаток действия всегда совпадает с отпечатком при сборе тем же движком
+ */
+final class ScriptHarvester implements ElementHarvester {
+
+    /**
+     * Прежний сбор по CSS-селектору: все, что похоже на интерактивный элемент,
+     * включая любые элементы с id
+     */
+    static final String CSS_CANDIDATES = """
+              const SELECTOR = 'button, input, select, textarea, a, [role=button], [onclick], [data-testid], [id]';
+              const isCandidate = (el) => el.matches(SELECTOR);
+              const candidates = (root = document) => root.querySelectorAll(SELECTOR);
+            """;
+
+    /**
+     * Сбор по ARIA-ролям, как их видит getByRole: элементы форм, ссылки с href и элементы
+     * с интерактивной ролью (явной или неявной), фокусируемые и contenteditable.
+     * Элементы с id или data-testid без интерактивной роли (разметка) не считаются,
+     * скрытые от дерева доступности (aria-hidden, inert) тоже
+     */
+    static final String ROLE_CANDIDATES = """
+              const QUERY = 'a[href], button, input, select, textarea, summary, [role], [tabindex], [contenteditable], [onclick]';
+              const FORM_CONTROLS = new Set(['BUTTON', 'INPUT', 'SELECT', 'TEXTAREA']);
+              const INTERACTIVE_ROLES = new Set([
+                'button', 'link', 'textbox', 'searchbox', 'checkbox', 'radio', 'switch', 'combobox', 'listbox',
+                'option', 'menuitem', 'menuitemcheckbox', 'menuitemradio', 'tab', 'slider', 'spinbutton', 'treeitem'
+              ]);
+              const isCandidate = (el) => {
+                if (!el.matches(QUERY) || el.closest('[aria-hidden=true], [inert]')) return false;
+                if (FORM_CONTROLS.has(el.tagName)) return !(el.tagName === 'INPUT' && el.type === 'hidden');
+                return INTERACTIVE_ROLES.has(roleOf(el)) || el.isContentEditable
+                  || el.hasAttribute('onclick') || (el.hasAttribute('tabindex') && el.tabIndex >= 0);
+              };
+              const candidates = (root = document) => Array.prototype.filter.call(root.querySelectorAll(QUERY), isCandidate);
+            """;
+
+    /**
+     * Общие для сбора и для действий функции: проверка видимости и канонический
+     * отпечаток элемента. Кандидатов выбирает движок (isCandidate, candidates).
+     * Отпечаток по приоритету:
+     * data-testid:..., id:..., role:роль:доступное имя (с ~N для повторов),
+     * path:TAG@хеш структурного пути от ближайшего предка с id
+     */
+    private static final String HELPERS = """
+              const isShown = (el) => el.checkVisibility ? el.checkVisibility() : el.getClientRects().length > 0;
+
+              // FNV-1a, чтобы длинные имена и пути превращались в короткий стабильный ключ
+              const hashText = (text) => {
+                let h = 0x811c9dc5;
+                for (let i = 0; i < text.length; i++) {
+                  h ^= text.charCodeAt(i);
+                  h = Math.imul(h, 0x01000193);
+                }
+                return (h >>> 0).toString(36);
+              };
+
+              const normalize = (text) => (text || '').trim().replace(/\\s+/g, ' ');
+
+              const IMPLICIT_ROLES = { A: 'link', BUTTON: 'button', SELECT: 'combobox', TEXTAREA: 'textbox', SUMMARY: 'button' };
+              const INPUT_ROLES = {
+                button: 'button', submit: 'button', reset: 'button', image: 'button', checkbox: 'checkbox',
+                radio: 'radio', range: 'slider', number: 'spinbutton', search: 'searchbox',
+                text: 'textbox', email: 'textbox', tel: 'textbox', url: 'textbox', password: 'textbox'
+              };
+
+              const roleOf = (el) => {
+                const explicit = el.getAttribute('role');
+                if (explicit) return explicit.trim().split(/\\s+/)[0];
+                if (el.tagName === 'INPUT') {
+                  const type = (el.getAttribute('type') || 'text').toLowerCase();
+                  return INPUT_ROLES[type] || type;
+                }
+                return IMPLICIT_ROLES[el.tagName] || '';
+              };
+
+              // Упрощенное доступное имя: без значений полей, которые меняет сам тест
+              const accessibleName = (el) => {
+                const labelledBy = el.getAttribute('aria-labelledby');
+                if (labelledBy) {
+                  const text = normalize(labelledBy.split(/\\s+/)
+                    .map(id => document.getElementById(id))
+                    .filter(Boolean)
+                    .map(node => node.textContent)
+                    .join(' '));
+                  if (text) return text;
+                }
+                const label = normalize(el.getAttribute('aria-label'));
+                if (label) return label;
+                if (el.labels && el.labels.length) {
+                  const text = normalize(Array.from(el.labels, node => node.textContent).join(' '));
+                  if (text) return text;
+                }
+                if (el.tagName === 'INPUT' && /^(button|submit|reset)$/i.test(el.type)) return normalize(el.value);
+                const hint = normalize(el.getAttribute('placeholder') || el.getAttribute('title') || el.getAttribute('alt'));
+                if (hint) return hint;
+                if (el.tagName === 'INPUT' || el.tagName === 'SELECT' || el.tagName === 'TEXTAREA') return '';
+                return normalize(el.textContent);
+              };
+
+              // Путь tag:номер-среди-одноименных-соседей до предка с id или data-testid
+              const structuralPath = (el) => {
+                const parts = [];
+                for (let node = el; node && node.nodeType === 1 && node !== document.body; node = node.parentElement) {
+                  const anchor = node.getAttribute('data-testid') || node.id;
+                  if (node !== el && anchor) {
+                    parts.push('#' + anchor);
+                    break;
+                  }
+                  let index = 1;
+                  for (let sibling = node.previousElementSibling; sibling; sibling = sibling.previousElementSibling) {
+                    if (sibling.tagName === node.tagName) index++;
+                  }
+                  parts.push(node.tagName + ':' + index);
+                }
+                return parts.reverse().join('>');
+              };
+
+              const baseKey = (el) => {
+                const testId = el.getAttribute('data-testid');
+                if (testId) return 'data-testid:' + testId;
+                const id = el.id ? el.id.trim() : '';
+                if (id) return 'id:' + id;
+                const role = roleOf(el);
+                const name = role ? accessibleName(el) : '';
+                if (name) {
+                  const shortName = name.length > 60 ? name.substring(0, 40) + '…#' + hashText(name) : name;
+                  return 'role:' + role + ':' + shortName;
+                }
+                return 'path:' + el.tagName + '@' + hashText(structuralPath(el));
+              };
+
+              // Одинаковые роль и имя, а также повторяющиеся id различаем порядковым номером
+              // среди видимых кандидатов в порядке документа
+              const needsOrdinal = (key) => key.startsWith('role:') || key.startsWith('id:');
+
+              // Отпечатки для списка видимых элементов в порядке документа за один проход
+              const fingerprintAll = (elements) => {
+                const counts = new Map();
+                return elements.map(el => {
+                  const key = baseKey(el);
+                  if (!needsOrdinal(key)) return key;
+                  const count = (counts.get(key) || 0) + 1;
+                  counts.set(key, count);
+                  return count > 1 ? key + '~' + count : key;
+                });
+              };
+
+              // Отпечаток одного элемента: тот же результат, что и fingerprintAll для всей страницы.
+              // Номер считается по видимым кандидатам перед элементом, поэтому он верен и для цели,
+              // которая сама не кандидат или скрыта. Для id смотрим только элементы с тем же id
+              const fingerprint = (el) => {
+                const key = baseKey(el);
+                if (!needsOrdinal(key)) return key;
+                const sameId = key.startsWith('id:') && key === 'id:' + el.id;
+                const pool = sameId ? document.querySelectorAll('[id="' + CSS.escape(el.id) + '"]') : candidates();
+                const role = roleOf(el);
+                let ordinal = 1;
+                for (const other of pool) {
+                  if (other === el || (el.compareDocumentPosition(other) & Node.DOCUMENT_POSITION_FOLLOWING)) break;
+                  if ((sameId || roleOf(other) === role) && isCandidate(other) && isShown(other) && baseKey(other) === key) ordinal++;
+                }
+                return ordinal > 1 ? key + '~' + ordinal : key;
+              };
+            """;
+
+    /**
+     * Сбор интерактивных элементов за один вызов evaluate:
+     * один общий querySelectorAll вместо прохода по каждому селектору,
+     * проверка видимости отдельным проходом только на чтение (layout считается один раз),
+     * дедупликация через Set. Возвращает записи [tag, отпечаток]
+     */
+    private static final String HARVEST_FUNCTION = """
+              const harvestAll = () => {
+                const found = candidates();
+
+                // Между чтениями нет записей в DOM, поэтому браузер не пересчитывает layout на каждом элементе
+                const visible = [];
+                for (const el of found) {
+                  if (isShown(el)) visible.push(el);
+                }
+
+                const keys = fingerprintAll(visible);
+                const seen = new Set();
+                const result = [];
+                visible.forEach((el, index) => {
+                  if (!seen.has(keys[index])) {
+                    seen.add(keys[index]);
+                    result.push([el.tagName, keys[index]]);
+                  }
+                });
+                return result;
+              };
+
+              // Дешевый хеш структуры без layout: собственные атрибуты кандидатов, начало их текста
+              // и состояние предков, от которого зависит видимость (класс, стиль, hidden, open, inert).
+              // Каждый предок учитывается один раз, текст читается не дальше нескольких узлов,
+              // поэтому стоимость линейна от размера страницы, а не от глубины вложенности
+              const structureHash = () => {
+                let h = 0x811c9dc5;
+                const mix = (text) => {
+                  for (let i = 0; i < text.length; i++) {
+                    h ^= text.charCodeAt(i);
+                    h = Math.imul(h, 0x01000193);
+                  }
+                  h ^= 0x1f;
+                  h = Math.imul(h, 0x01000193);
+                };
+                const mixState = (el) => {
+                  for (const name of ['class', 'style', 'hidden', 'open', 'inert', 'aria-hidden']) {
+                    mix(el.getAttribute(name) || '');
+                  }
+                };
+                const leadingText = (el) => {
+                  const walker = document.createTreeWalker(el, NodeFilter.SHOW_TEXT);
+                  let text = '';
+                  for (let nodes = 0; nodes < 8 && text.length < 64 && walker.nextNode(); nodes++) {
+                    text += walker.currentNode.data;
+                  }
+                  return text.slice(0, 64);
+                };
+                const ancestors = new Set();
+                const found = candidates();
+                for (const el of found) {
+                  mix(el.tagName);
+                  mix(el.id);
+                  for (const name of ['data-testid', 'role', 'type', 'aria-label', 'disabled']) {
+                    mix(el.getAttribute(name) || '');
+                  }
+                  mixState(el);
+                  mix(leadingText(el));
+                  for (let node = el.parentElement; node && !ancestors.has(node); node = node.parentElement) {
+                    ancestors.add(node);
+                    mix(node.tagName);
+                    mixState(node);
+                  }
+                }
+                return (h >>> 0).toString(36) + ':' + found.length;
+              };
+            """;
+
+    private static final String HARVEST_BODY = """
+              return harvestAll();
+            }""";
+
+    /**
+     * Сбор с кэшем: браузер считает хеш структуры и собирает элементы, только если
+     * для этой страницы еще нет инвентаря с таким хешем. Возвращает [хеш, записи или null]
+     */
+    private static final String CACHED_HARVEST_BODY = """
+              const hash = structureHash();
+              return known.includes(hash) ? [hash, null] : [hash, harvestAll()];
+            }""";
+
+    /**
+     * Отпечаток элемента, с которым работает тест (вызывается через locator.evaluate)
+     */
+    private static final String FINGERPRINT_BODY = """
+              return [el.tagName, fingerprint(el)];
+            }
+            """;
+
+    /**
+     * Заполнение нескольких полей за один вызов evaluate. Значение ставится через нативный
+     * сеттер value и события input/change, чтобы его увидели React и другие фреймворки.
+     * Отпечаток снимается до ввода. Останавливается на первом поле, которого нет или которое
+     * нельзя заполнить: остальные шаги выполняются обычным fill Playwright с ожиданием
+     */
+    private static final String BATCH_FILL_BODY = """
+              const NOT_TEXT = /^(checkbox|radio|file|submit|button|reset|image|range|color|hidden)$/i;
+              const fillable = (el) => el && isShown(el) && !el.disabled && !el.readOnly
+                && (el.isContentEditable || el.tagName === 'TEXTAREA' || (el.tagName === 'INPUT' && !NOT_TEXT.test(el.type)));
+
+              const described = [];
+              for (const [selector, value] of steps) {
+                let el;
+                try {
+                  el = document.querySelector(selector);
+                } catch (e) {
+                  break; // селектор Playwright, а не CSS
+                }
+                if (!fillable(el)) break;
+                described.push([el.tagName, fingerprint(el)]);
+                el.focus();
+                if (el.isContentEditable) {
+                  el.textContent = value;
+                } else {
+                  Object.getOwnPropertyDescriptor(Object.getPrototypeOf(el), 'value').set.call(el, value);
+                }
+                el.dispatchEvent(new Event('input', { bubbles: true }));
+                el.dispatchEvent(new Event('change', { bubbles: true }));
+              }
+              return described;
+            }""";
+
+    /**
+     * Инкрементальный режим: MutationObserver ставится до загрузки документа
+     * и пачками отправляет в Java только добавленные и удаленные интерактивные элементы.
+     * Стоимость пропорциональна размеру изменения DOM, а не размеру страницы
+     */
+    private static final String INCREMENTAL_BODY = """
+              if (window !== window.top || window.__uiCoverageObserver) return;
+
+              const FLUSH_DELAY_MS = 100;
+              const reported = new WeakMap();   // элемент -> { key, record }
+              const liveKeys = new Map();       // ключ -> количество живых элементов с этим ключом
+              let pending = new Set();
+              let removed = [];
+              let scheduled = false;
+              // Первая пачка нового документа сбрасывает инвентарь прошлого: старый документ
+              // не присылает удаленные элементы. Переходы внутри документа (hash, pushState) его не сбрасывают
+              let reset = true;
+
+              const collect = (node, into) => {
+                if (node.nodeType !== 1) return;
+                if (isCandidate(node)) into(node);
+                candidates(node).forEach(into);
+              };
+
+              const flush = () => {
+                scheduled = false;
+                const added = [];
+                // Видимость проверяем пачкой в момент отправки, а не на каждую мутацию
+                const fresh = [];
+                for (const el of pending) {
+                  if (el.isConnected && !reported.has(el) && isShown(el)) fresh.push(el);
+                }
+                // Порядковые номера одинаковых ролей и имен считаем одним проходом по странице,
+                // и только если в пачке есть такие элементы
+                let pageKeys = null;
+                const keyOf = (el) => {
+                  const key = baseKey(el);
+                  if (!needsOrdinal(key)) return key;
+                  // Повторяющийся id дешево проверить точечно, без прохода по странице
+                  if (key.startsWith('id:')) return fingerprint(el);
+                  if (!pageKeys) {
+                    const visible = Array.from(candidates()).filter(isShown);
+                    const keys = fingerprintAll(visible);
+                    pageKeys = new Map(visible.map((node, index) => [node, keys[index]]));
+                  }
+                  return pageKeys.get(el) || key;
+                };
+                for (const el of fresh) {
+                  const key = keyOf(el);
+                  const described = { key, record: [el.tagName, key] };
+                  reported.set(el, described);
+                  const count = liveKeys.get(described.key) || 0;
+                  liveKeys.set(described.key, count + 1);
+                  if (count === 0) added.push(described.record);
+                }
+                pending = new Set();
+                if (!reset && added.length === 0 && removed.length === 0) return;
+                const batch = { reset, added, removed };
+                reset = false;
+                removed = [];
+                if (typeof window.__uiCoverageBatch === 'function') window.__uiCoverageBatch(batch);
+              };
+
+              const schedule = () => {
+                if (!scheduled) {
+                  scheduled = true;
+                  setTimeout(flush, FLUSH_DELAY_MS);
+                }
+              };
+
+              const forget = (el) => {
+                pending.delete(el);
+                const described = reported.get(el);
+                if (!described) return;
+                reported.delete(el);
+                const count = liveKeys.get(described.key) - 1;
+                if (count > 0) {
+                  liveKeys.set(described.key, count);
+                } else {
+                  liveKeys.delete(described.key);
+                  removed.push(described.record);
+                }
+              };
+
+              const observer = new MutationObserver((mutations) => {
+                for (const mutation of mutations) {
+                  if (mutation.type === 'childList') {
+                    mutation.addedNodes.forEach(node => collect(node, el => pending.add(el)));
+                    mutation.removedNodes.forEach(node => {
+                      if (!node.isConnected) collect(node, forget);
+                    });
+                  } else {
+                    // Смена class/style/hidden может показать ранее скрытый модал или секцию
+                    collect(mutation.target, el => { if (!reported.has(el)) pending.add(el); });
+                  }
+                }
+                schedule();
+              });
+
+              observer.observe(document, {
+                childList: true,
+                subtree: true,
+                attributes: true,
+                attributeFilter: ['class', 'style', 'hidden', 'open']
+              });
+              window.__uiCoverageObserver = observer;
+              // Сброс уходит и для пустой страницы
+              schedule();
+            })();
+            """;
+
+    private final String name;
+    private final String harvestScript;
+    private final String cachedHarvestScript;
+    private final String fingerprintScript;
+    private final String batchFillScript;
+    private final String incrementalScript;
+
+    ScriptHarvester(String name, String candidatesScript) {
+        String helpers = candidatesScript + HELPERS;
+        this.name = name;
+        this.harvestScript = "() => {\n" + helpers + HARVEST_FUNCTION + HARVEST_BODY;
+        this.cachedHarvestScript = "(known) => {\n" + helpers + HARVEST_FUNCTION + CACHED_HARVEST_BODY;
+        this.fingerprintScript = "(el) => {\n" + helpers + FINGERPRINT_BODY;
+        this.batchFillScript = "(steps) => {\n" + helpers + BATCH_FILL_BODY;
+        this.incrementalScript = "(() => {\n" + helpers + INCREMENTAL_BODY;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String harvestScript() {
+        return harvestScript;
+    }
+
+    @Override
+    public String cachedHarvestScript() {
+        return cachedHarvestScript;
+    }
+
+    @Override
+    public String fingerprintScript() {
+        return fingerprintScript;
+    }
+
+    @Override
+    public String batchFillScript() {
+        return batchFillScript;
+    }
+
+    @Override
+    public String incrementalScript() {
+        return incrementalScript;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Карта "тест -> элементы, которые он покрыл". Собирается за прогон и хранится рядом
+ * с историей покрытия (.ui-coverage/test-map.tsv.gz): тесты этого прогона заменяют свои записи,
+ * записи тестов, которые не запускались, остаются. На ней строится выбор и порядок тестов
+ */
+public class TestImpactMap {
+
+    public static final String FILE = "test-map.tsv.gz";
+    private static final String LOCK = "test-map.lock";
+
+    private final Map<String, Set<String>> current = new ConcurrentHashMap<>();
+
+    // Конструктор для Singleton (доступен в пакете для изолированных проверок)
+    TestImpactMap() {}
+
+    // Ленивая и безопасная публикация экземпляра через holder-класс
+    private static final class Holder {
+        private static final TestImpactMap INSTANCE = new TestImpactMap();
+    }
+
+    public static TestImpactMap getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Тест начался: даже без покрытых элементов его старая запись будет заменена
+    public void started(String testId) {
+        current.computeIfAbsent(testId, key -> ConcurrentHashMap.newKeySet());
+    }
+
+    public void record(String testId, String fingerprint) {
+        current.computeIfAbsent(testId, key -> ConcurrentHashMap.newKeySet()).add(fingerprint);
+    }
+
+    // Записи текущего прогона, только чтение
+    public Map<String, Set<String>> current() {
+        return Collections.unmodifiableMap(current);
+    }
+
+    /**
+     * Сохраненная карта из каталога истории или пустая карта
+     */
+    public static Map<String, Set<String>> load(Path directory) throws IOException {
+        Map<String, Set<String>> map = new TreeMap<>();
+        Path file = directory.resolve(FILE);
+        if (!Files.isRegularFile(file)) {
+            return map;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                Set<String> elements = new HashSet<>();
+                for (int i = 1; i < fields.length; i++) {
+                    elements.add(CoverageHistory.unescape(fields[i]));
+                }
+                map.put(CoverageHistory.unescape(fields[0]), elements);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Добавляет записи текущего прогона в сохраненную карту. Форки пишут под файловой
+     * блокировкой, поэтому записи параллельных форков не теряются
+     */
+    public synchronized void save(Path directory) throws IOException {
+        if (current.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Блокировка снимается при закрытии канала
+            lockChannel.lock();
+            Map<String, Set<String>> map = load(directory);
+            map.putAll(current);
+
+            Path temp = Files.createTempFile(directory, FILE, ".tmp");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+                    writer.write(CoverageHistory.escape(entry.getKey()));
+                    for (String element : entry.getValue()) {
+                        writer.write('\t');
+                        writer.write(CoverageHistory.escape(element));
+                    }
+                    writer.write('\n');
+                }
+            }
+            Files.move(temp, directory.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package utils;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Выбор и порядок тестов по карте "тест -> покрытые элементы" (см. TestImpactMap).
+ * Первыми идут тесты, которые трогают изменившиеся элементы. Минимальный набор -
+ * жадное покрытие множествами: берется тест, покрывающий больше всего еще не покрытых
+ * элементов, пока не покрыто все. Тест, чьи элементы уже покрыты другими выбранными
+ * (в том числе строгое подмножество другого теста), можно пропустить
+ */
+public class TestSelection {
+
+    private final Map<String, Set<String>> coverage;
+    private final Set<String> changed;
+    private final Set<String> selected;
+
+    /**
+     * @param coverage сохраненная карта тест -> элементы
+     * @param changed  элементы, которые изменились с прошлой сборки
+     */
+    public TestSelection(Map<String, Set<String>> coverage, Set<String> changed) {
+        // Отсортированная копия: при равенстве выбор не зависит от порядка чтения карты
+        this.coverage = new TreeMap<>(coverage);
+        this.changed = changed;
+        this.selected = greedyCover(this.coverage);
+    }
+
+    static Set<String> greedyCover(Map<String, Set<String>> coverage) {
+        Set<String> uncovered = new HashSet<>();
+        coverage.values().forEach(uncovered::addAll);
+        Set<String> selected = new LinkedHashSet<>();
+        while (!uncovered.isEmpty()) {
+            String best = null;
+            int bestGain = 0;
+            for (Map.Entry<String, Set<String>> entry : coverage.entrySet()) {
+                if (selected.contains(entry.getKey())) {
+                    continue;
+                }
+                int gain = 0;
+                for (String element : entry.getValue()) {
+                    if (uncovered.contains(element)) gain++;
+                }
+                if (gain > bestGain) {
+                    best = entry.getKey();
+                    bestGain = gain;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            selected.add(best);
+            uncovered.removeAll(coverage.get(best));
+        }
+        return selected;
+    }
+
+    /**
+     * Сколько изменившихся элементов покрывает тест: чем больше, тем раньше он запускается
+     */
+    public int priority(String testId) {
+        Set<String> elements = coverage.get(testId);
+        if (elements == null || changed.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (String element : elements) {
+            if (changed.contains(element)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Новый тест или тест без покрытых элементов запускается всегда: о нем ничего не известно.
+     * Тест, который трогает изменившиеся элементы, тоже запускается, даже если его элементы
+     * покрыты другими выбранными тестами
+     */
+    public boolean shouldRun(String testId) {
+        Set<String> elements = coverage.get(testId);
+        return elements == null || elements.isEmpty() || selected.contains(testId) || priority(testId) > 0;
+    }
+
+    public Set<String> getSelected() {
+        return selected;
+    }
+
+    public int getKnownTests() {
+        return coverage.size();
+    }
+
+    public int getChangedCount() {
+        return changed.size();
+    }
+}
@@ -0,0 +1,72 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка выбора тестов по карте покрытия без браузера
+ */
+public class TestSelectionTest {
+
+    private static final Map<String, Set<String>> COVERAGE = Map.of(
+            "FormTest#fillAll", Set.of("id:name", "id:email", "id:submit"),
+            "FormTest#fillName", Set.of("id:name"),
+            "FormTest#submitOnly", Set.of("id:submit"),
+            "MenuTest#open", Set.of("role:link:Home", "id:email"),
+            "FlakyTest#failsEarly", Set.of());
+
+    @Test
+    void testStrictSubsetsAreSkippedAndUnknownTestsRun() {
+        TestSelection selection = new TestSelection(COVERAGE, Set.of());
+
+        assertEquals(Set.of("FormTest#fillAll", "MenuTest#open"), selection.getSelected());
+        assertTrue(selection.shouldRun("FormTest#fillAll"));
+        assertFalse(selection.shouldRun("FormTest#fillName"));
+        assertFalse(selection.shouldRun("FormTest#submitOnly"));
+        assertTrue(selection.shouldRun("FlakyTest#failsEarly"));
+        assertTrue(selection.shouldRun("NewTest#neverRecorded"));
+    }
+
+    @Test
+    void testTestsTouchingChangedElementsComeFirst() {
+        TestSelection selection = new TestSelection(COVERAGE, Set.of("id:email", "role:link:Home"));
+
+        assertEquals(2, selection.priority("MenuTest#open"));
+        assertEquals(1, selection.priority("FormTest#fillAll"));
+        assertEquals(0, selection.priority("FormTest#submitOnly"));
+        assertEquals(0, selection.priority("NewTest#neverRecorded"));
+    }
+
+    @Test
+    void testTestsTouchingChangedElementsRunEvenIfCoveredByOthers() {
+        TestSelection selection = new TestSelection(COVERAGE, Set.of("id:name"));
+
+        // fillName - подмножество fillAll и не входит в покрытие, но трогает изменившийся элемент
+        assertFalse(selection.getSelected().contains("FormTest#fillName"));
+        assertTrue(selection.shouldRun("FormTest#fillName"));
+        assertFalse(selection.shouldRun("FormTest#submitOnly"));
+    }
+
+    @Test
+    void testMapKeepsEntriesOfTestsThatDidNotRun(@TempDir Path directory) throws Exception {
+        TestImpactMap firstRun = new TestImpactMap();
+        firstRun.record("FormTest#fillAll", "id:name");
+        firstRun.record("MenuTest#open", "role:link:Home\tmain");
+        firstRun.save(directory);
+
+        TestImpactMap secondRun = new TestImpactMap();
+        secondRun.started("FormTest#fillAll");
+        secondRun.record("FormTest#fillAll", "id:email");
+        secondRun.save(directory);
+
+        Map<String, Set<String>> map = TestImpactMap.load(directory);
+        assertEquals(Set.of("id:email"), map.get("FormTest#fillAll"));
+        assertEquals(Set.of("role:link:Home\tmain"), map.get("MenuTest#open"));
+    }
+}
@@ -1,64 +1,214 @@
 package utils;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Класс для отслеживания покрытия UI элементов тестами
+ * Класс для отслеживания покрытия UI элементов тестами.
+ * Потокобезопасен: рассчитан на параллельный запуск JUnit 5
+ * (junit.jupiter.execution.parallel.enabled) с отдельным BrowserContext на тест.
+ * Идентификаторы - канонические отпечатки элементов (см. DOMElementExtractor).
+ * Каждая строка интернируется один раз, инвентарь и покрытие - наборы битов по номерам,
+ * поэтому память и стоимость подсчета покрытия не зависят от длины идентификаторов.
  */
 public class UICoverageTracker {
-    private static UICoverageTracker instance;
-    private Set<String> allElements = new HashSet<>();
-    private Set<String> coveredElements = new HashSet<>();
+    private final ElementInterner interner = new ElementInterner();
+    // Установка бита - один CAS, параллельные addElement/markAsCovered не блокируют друг друга
+    private final ConcurrentBitSet allElements = new ConcurrentBitSet();
+    private final ConcurrentBitSet coveredElements = new ConcurrentBitSet();
+    // Где и какой элемент был найден: для группировки и фильтров в отчете (индекс - номер элемента)
+    private final ElementColumn<ElementInfo> elementInfo = new ElementColumn<>();
+    // Одинаковые пары страница/тип хранятся одним объектом на все элементы
+    private final Map<ElementInfo, ElementInfo> sharedInfo = new ConcurrentHashMap<>();
+    // Счетчики обращений по видам действий (индекс - ActionKind.ordinal), только для покрытых элементов.
+    // LongAdder не конкурирует за одну ячейку при параллельных тестах
+    private final ElementColumn<LongAdder[]> hits = new ElementColumn<>();
 
-    // Приватный конструктор для Singleton
-    private UICoverageTracker() {}
+    /**
+     * Описание элемента для отчета
+     *
+     * @param page имя страницы, на которой элемент найден впервые
+     * @param type тип элемента (тег в нижнем регистре: button, input, a, ...)
+     */
+    public record ElementInfo(String page, String type) {}
+
+    // Конструктор для Singleton (доступен в пакете для изолированных проверок)
+    UICoverageTracker() {}
+
+    // Ленивая и безопасная публикация экземпляра через holder-класс
+    private static final class Holder {
+        private static final UICoverageTracker INSTANCE = new UICoverageTracker();
+    }
 
     // Получаем экземпляр трекера
     public static UICoverageTracker getInstance() {
-        if (instance == null) {
-            instance = new UICoverageTracker();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
     // Добавляем элемент в список всех элементов
     public void addElement(String elementId) {
-        allElements.add(elementId);
+        allElements.set(interner.intern(elementId));
+    }
+
+    // Добавляем элемент вместе со страницей и типом
+    public void addElement(String elementId, String page, String type) {
+        int id = interner.intern(elementId);
+        allElements.set(id);
+        if (page != null || type != null) {
+            ElementInfo info = new ElementInfo(page, type);
+            elementInfo.putIfAbsent(id, sharedInfo.computeIfAbsent(info, key -> key));
+        }
+    }
+
+    // Описание элемента или null, если оно неизвестно
+    public ElementInfo getElementInfo(String elementId) {
+        int id = interner.find(elementId);
+        return elementInfo.get(id);
     }
 
-    // Отмечаем элемент как покрытый тестом
+    // Отмечаем элемент как покрытый тестом. Покрытый элемент всегда есть и в инвентаре,
+    // даже если сбор его не нашел (например, он появился только после действия)
     public void markAsCovered(String elementId) {
-        coveredElements.add(elementId);
+        int id = interner.intern(elementId);
+        allElements.set(id);
+        coveredElements.set(id);
+    }
+
+    // Отмечаем элемент как покрытый и считаем обращение указанного вида
+    public void markAsCovered(String elementId, ActionKind kind) {
+        int id = interner.intern(elementId);
+        allElements.set(id);
+        coveredElements.set(id);
+        hits.computeIfAbsent(id, UICoverageTracker::newCounters)[kind.ordinal()].increment();
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[ActionKind.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * Число обращений к элементу по видам действий (индекс - ActionKind.ordinal)
+     * или null, если действий над элементом не было
+     */
+    public long[] getHits(String elementId) {
+        int id = interner.find(elementId);
+        LongAdder[] counters = hits.get(id);
+        if (counters == null) {
+            return null;
+        }
+        long[] result = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            result[i] = counters[i].sum();
+        }
+        return result;
+    }
+
+    // Всего действий над элементами
+    public long getTotalHits() {
+        long[] total = new long[1];
+        hits.forEach(counters -> {
+            for (LongAdder counter : counters) {
+                total[0] += counter.sum();
+            }
+        });
+        return total[0];
     }
 
     // Получаем процент покрытия
     public double getCoveragePercentage() {
-        if (allElements.isEmpty()) return 0.0;
-        return (double) coveredElements.size() / allElements.size() * 100;
+        int total = allElements.cardinality();
+        if (total == 0) return 0.0;
+        return (double) coveredElements.cardinality() / total * 100;
     }
 
     // Получаем статистику
     public void printCoverageReport() {
+        int total = allElements.cardinality();
+        int covered = coveredElements.cardinality();
         System.out.println("=== UI COVERAGE REPORT ===");
-        System.out.println("Total elements: " + allElements.size());
-        System.out.println("Covered elements: " + coveredElements.size());
-        System.out.println("Coverage: " + String.format("%.2f", getCoveragePercentage()) + "%");
-        System.out.println("Uncovered elements: " + (allElements.size() - coveredElements.size()));
+        System.out.println("Total elements: " + total);
+        System.out.println("Covered elements: " + covered);
+        System.out.println("Coverage: " + String.format("%.2f", total == 0 ? 0.0 : (double) covered / total * 100) + "%");
+        System.out.println("Uncovered elements: " + (total - covered));
+        System.out.println("Actions performed: " + getTotalHits());
     }
 
-    // Геттеры для отчетов
+    // Представления для отчетов: только чтение, без копирования, отражают текущее состояние
     public Set<String> getAllElements() {
-        return new HashSet<>(allElements);
+        return new ElementView(allElements);
     }
 
     public Set<String> getCoveredElements() {
-        return new HashSet<>(coveredElements);
+        return new ElementView(coveredElements);
+    }
+
+    public int getTotalCount() {
+        return allElements.cardinality();
+    }
+
+    public int getCoveredCount() {
+        return coveredElements.cardinality();
+    }
+
+    /**
+     * Множество идентификаторов поверх набора битов: contains - поиск номера и проверка бита,
+     * итерация идет по установленным битам. Изменять нельзя
+     */
+    private final class ElementView extends AbstractSet<String> {
+        private final ConcurrentBitSet bits;
+
+        ElementView(ConcurrentBitSet bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String elementId && bits.get(interner.find(elementId));
+        }
+
+        @Override
+        public int size() {
+            return bits.cardinality();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next = bits.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public String next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    String elementId = interner.name(next);
+                    next = bits.nextSetBit(next + 1);
+                    return elementId;
+                }
+            };
+        }
     }
 
-    // Очищаем данные (для нового запуска)
+    // Очищаем данные (для нового запуска). Номера отпечатков остаются за строками
     public void reset() {
         allElements.clear();
         coveredElements.clear();
+        elementInfo.clear();
+        sharedInfo.clear();
+        hits.clear();
     }
-}
\ No newline at end of file
+}
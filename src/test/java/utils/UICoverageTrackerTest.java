@@ -0,0 +1,117 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка трекера покрытия без браузера: параллельная запись из нескольких потоков
+ */
+public class UICoverageTrackerTest {
+
+    // Отдельный экземпляр, чтобы не смешивать данные с общим трекером UI тестов
+    private final UICoverageTracker tracker = new UICoverageTracker();
+
+    @Test
+    void testSingletonIsShared() {
+        assertSame(UICoverageTracker.getInstance(), UICoverageTracker.getInstance());
+    }
+
+    @Test
+    void testCoveredElementJoinsInventoryUnderSameFingerprint() {
+        tracker.addElement("id:userName", "Text Box", "input");
+        tracker.markAsCovered("id:userName");
+        tracker.markAsCovered("role:button:Click Me");
+
+        assertEquals(Set.of("id:userName", "role:button:Click Me"), tracker.getAllElements());
+        assertEquals(tracker.getAllElements(), tracker.getCoveredElements());
+        assertEquals(100.0, tracker.getCoveragePercentage());
+        assertEquals(new UICoverageTracker.ElementInfo("Text Box", "input"), tracker.getElementInfo("id:userName"));
+        assertNull(tracker.getElementInfo("id:unknown"));
+        assertThrows(UnsupportedOperationException.class, () -> tracker.getAllElements().add("id:other"));
+    }
+
+    @Test
+    void testHitsAreCountedPerActionKindFromManyThreads() {
+        IntStream.range(0, 10_000).parallel().forEach(i ->
+                tracker.markAsCovered("id:submit", i % 4 == 0 ? ActionKind.FILL : ActionKind.CLICK));
+        tracker.markAsCovered("id:output");
+
+        long[] hits = tracker.getHits("id:submit");
+        assertEquals(7_500, hits[ActionKind.CLICK.ordinal()]);
+        assertEquals(2_500, hits[ActionKind.FILL.ordinal()]);
+        assertEquals(0, hits[ActionKind.VISIBLE.ordinal()]);
+        assertNull(tracker.getHits("id:output"));
+        assertEquals(10_000, tracker.getTotalHits());
+    }
+
+    @Test
+    void testInfoAndHitsSurviveGrowthPastManyChunks() {
+        // Номера растут одновременно из нескольких потоков и пересекают границы блоков по 4K
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            tracker.addElement("id:field-" + i, "Page " + (i % 3), "input");
+            tracker.markAsCovered("id:field-" + i, ActionKind.FILL);
+        });
+
+        assertEquals(new UICoverageTracker.ElementInfo("Page 1", "input"), tracker.getElementInfo("id:field-19999"));
+        assertEquals(1, tracker.getHits("id:field-12345")[ActionKind.FILL.ordinal()]);
+        assertEquals(20_000, tracker.getTotalHits());
+        tracker.reset();
+        assertNull(tracker.getElementInfo("id:field-1"));
+        assertEquals(0, tracker.getTotalHits());
+    }
+
+    @Test
+    void testInternerReturnsSameIdForSameFingerprint() {
+        ElementInterner interner = new ElementInterner();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, interner.intern("id:e" + i));
+        }
+        assertEquals(42, interner.intern("id:e42"));
+        assertEquals("id:e999", interner.name(999));
+        assertEquals(-1, interner.find("id:missing"));
+    }
+
+    @Test
+    void testConcurrentAddAndCoverDoNotLoseElements() throws Exception {
+        int threads = 8;
+        int perThread = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    String id = "id:t" + thread + "-" + i;
+                    tracker.addElement(id);
+                    // Каждый второй элемент покрываем, плюс общие элементы от всех потоков
+                    if (i % 2 == 0) tracker.markAsCovered(id);
+                    tracker.addElement("id:shared-" + i);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread + perThread, tracker.getAllElements().size());
+        assertEquals(threads * perThread / 2, tracker.getCoveredElements().size());
+    }
+}
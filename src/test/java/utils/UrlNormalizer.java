@@ -0,0 +1,106 @@
+package utils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Приведение URL к каноническому виду для обхода приложения краулером:
+ * одна и та же страница под разными записями адреса должна посещаться один раз
+ */
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {}
+
+    /**
+     * Канонический вид абсолютного http(s) URL или null, если адрес не для обхода.
+     * Схема и хост в нижнем регистре, порт по умолчанию убран, точки в пути раскрыты,
+     * параметры запроса отсортированы, метки рекламных кампаний убраны. Фрагмент остается
+     * только если это маршрут SPA (#/path или #!/path), якоря на той же странице отбрасываются
+     */
+    public static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        URI uri;
+        try {
+            uri = new URI(url.trim()).normalize();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!"http".equals(scheme) && !"https".equals(scheme) || uri.getHost() == null) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(url.length());
+        result.append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && "http".equals(scheme)) && !(port == 443 && "https".equals(scheme))) {
+            result.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        result.append(path == null || path.isEmpty() ? "/" : path);
+
+        String query = normalizeQuery(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            result.append('?').append(query);
+        }
+        String fragment = uri.getRawFragment();
+        if (fragment != null && (fragment.startsWith("/") || fragment.startsWith("!/"))) {
+            result.append('#').append(fragment);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Ссылка со страницы base в каноническом виде или null
+     */
+    public static String resolve(String base, String href) {
+        if (href == null || href.isBlank()) {
+            return null;
+        }
+        // Базу тоже нормализуем: URI.resolve склеивает неверно, если у базы пустой путь
+        String normalizedBase = normalize(base);
+        if (normalizedBase == null) {
+            return null;
+        }
+        try {
+            return normalize(new URI(normalizedBase).resolve(href.trim()).toString());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Схема, хост и порт совпадают (сравниваются канонические URL)
+    public static boolean sameOrigin(String first, String second) {
+        String origin = origin(first);
+        return origin != null && origin.equals(origin(second));
+    }
+
+    public static String origin(String url) {
+        String normalized = normalize(url);
+        if (normalized == null) {
+            return null;
+        }
+        int pathStart = normalized.indexOf('/', normalized.indexOf("://") + 3);
+        return pathStart < 0 ? normalized : normalized.substring(0, pathStart);
+    }
+
+    private static String normalizeQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : query.split("&")) {
+            String name = parameter.split("=", 2)[0].toLowerCase(Locale.ROOT);
+            if (parameter.isEmpty() || name.startsWith("utm_") || name.equals("gclid") || name.equals("fbclid")) {
+                continue;
+            }
+            parameters.add(parameter);
+        }
+        parameters.sort(null);
+        return String.join("&", parameters);
+    }
+}
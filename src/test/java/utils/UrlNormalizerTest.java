@@ -0,0 +1,38 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка канонических URL краулера: разные записи одной страницы дают один адрес
+ */
+public class UrlNormalizerTest {
+
+    @Test
+    void testEquivalentUrlsNormalizeToSameAddress() {
+        String expected = "https://demoqa.com/text-box?a=1&b=2";
+        assertEquals(expected, UrlNormalizer.normalize("HTTPS://DemoQA.com:443/forms/../text-box?b=2&a=1#section"));
+        assertEquals(expected, UrlNormalizer.normalize("https://demoqa.com/text-box?utm_source=mail&a=1&b=2&gclid=x"));
+        assertEquals("http://127.0.0.1:8080/", UrlNormalizer.normalize("http://127.0.0.1:8080"));
+        assertNull(UrlNormalizer.normalize("mailto:team@example.com"));
+        assertNull(UrlNormalizer.normalize("javascript:void(0)"));
+    }
+
+    @Test
+    void testHashRoutesAreKeptAndAnchorsDropped() {
+        assertEquals("https://app.test/#/orders", UrlNormalizer.normalize("https://app.test/#/orders"));
+        assertEquals("https://app.test/#!/orders", UrlNormalizer.normalize("https://app.test#!/orders"));
+        assertEquals("https://app.test/#/users", UrlNormalizer.resolve("https://app.test/#/orders", "#/users"));
+        assertEquals("https://app.test/docs", UrlNormalizer.resolve("https://app.test/docs#intro", "#top"));
+    }
+
+    @Test
+    void testResolveAndOrigin() {
+        assertEquals("https://app.test/b", UrlNormalizer.resolve("https://app.test", "b"));
+        assertEquals("https://app.test/a/c", UrlNormalizer.resolve("https://app.test/a/b", "c"));
+        assertTrue(UrlNormalizer.sameOrigin("https://app.test/a", "HTTPS://app.test:443/b"));
+        assertFalse(UrlNormalizer.sameOrigin("https://app.test/a", "http://app.test/a"));
+        assertFalse(UrlNormalizer.sameOrigin("https://app.test/a", "https://cdn.app.test/a"));
+    }
+}